@@ -1,6 +1,8 @@
 package com.invoiceprocessor.adapter.in.web;
 
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
 import com.invoiceprocessor.application.usecase.EmailSourceEndpointsUseCase;
+import com.invoiceprocessor.application.usecase.ExtractionCacheUseCase;
 import com.invoiceprocessor.application.usecase.GetIntegrationEndpointsUseCase;
 import com.invoiceprocessor.application.usecase.UpsertIntegrationEndpointUseCase;
 import com.invoiceprocessor.domain.entity.EndpointType;
@@ -18,14 +20,17 @@ public class AdminController {
     private final GetIntegrationEndpointsUseCase getUseCase;
     private final UpsertIntegrationEndpointUseCase upsertUseCase;
     private final EmailSourceEndpointsUseCase emailSourceUseCase;
+    private final ExtractionCacheUseCase extractionCacheUseCase;
 
     public AdminController(
             GetIntegrationEndpointsUseCase getUseCase,
             UpsertIntegrationEndpointUseCase upsertUseCase,
-            EmailSourceEndpointsUseCase emailSourceUseCase) {
+            EmailSourceEndpointsUseCase emailSourceUseCase,
+            ExtractionCacheUseCase extractionCacheUseCase) {
         this.getUseCase = getUseCase;
         this.upsertUseCase = upsertUseCase;
         this.emailSourceUseCase = emailSourceUseCase;
+        this.extractionCacheUseCase = extractionCacheUseCase;
     }
 
     @GetMapping("/endpoints")
@@ -74,6 +79,17 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/extraction-cache")
+    public ResponseEntity<ExtractionResultCache.CacheStats> getExtractionCacheStats() {
+        return ResponseEntity.ok(extractionCacheUseCase.stats());
+    }
+
+    @DeleteMapping("/extraction-cache")
+    public ResponseEntity<Map<String, Integer>> invalidateExtractionCache(@RequestParam String model) {
+        int removed = extractionCacheUseCase.invalidateModel(model);
+        return ResponseEntity.ok(Map.of("removed", removed));
+    }
+
     public record UpsertRequest(
         String name,
         Map<String, String> settings
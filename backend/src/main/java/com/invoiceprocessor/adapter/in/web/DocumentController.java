@@ -7,16 +7,24 @@ import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.DocumentType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -28,14 +36,20 @@ public class DocumentController {
     private final ReextractDocumentUseCase reextractDocumentUseCase;
     private final DocumentRepository documentRepository;
     private final StorageService storageService;
+    private final boolean presignedRedirect;
+    private final Duration presignedValidity;
 
     public DocumentController(
             ReextractDocumentUseCase reextractDocumentUseCase,
             DocumentRepository documentRepository,
-            StorageService storageService) {
+            StorageService storageService,
+            @Value("${storage.presigned-redirect.enabled:false}") boolean presignedRedirect,
+            @Value("${storage.presigned-redirect.validity-seconds:300}") long presignedValiditySeconds) {
         this.reextractDocumentUseCase = reextractDocumentUseCase;
         this.documentRepository = documentRepository;
         this.storageService = storageService;
+        this.presignedRedirect = presignedRedirect;
+        this.presignedValidity = Duration.ofSeconds(presignedValiditySeconds);
     }
 
     @PostMapping("/{documentId}/reextract")
@@ -52,8 +66,18 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Streams document content from storage without buffering it.
+     *
+     * Sends ETag and Last-Modified so repeat views get a 304, and answers
+     * single-range requests with 206 by fetching only that range from
+     * storage. With {@code storage.presigned-redirect.enabled} the client is
+     * redirected to a presigned storage URL instead.
+     */
     @GetMapping("/{documentId}/content")
-    public ResponseEntity<byte[]> getDocumentContent(@PathVariable UUID documentId) {
+    public ResponseEntity<Resource> getDocumentContent(
+            @PathVariable UUID documentId,
+            @RequestHeader HttpHeaders requestHeaders) {
         Optional<Document> optionalDocument = documentRepository.findById(documentId);
         if (optionalDocument.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -65,26 +89,49 @@ public class DocumentController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        try (InputStream in = storageService.downloadFile(key);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+        MediaType mediaType = determineMediaType(document);
+        String filename = document.getFilename() != null && !document.getFilename().isBlank()
+            ? document.getFilename()
+            : document.getId() + "";
+        String contentDisposition = "inline; filename=\"" + filename + "\"";
 
-            byte[] data = new byte[8192];
-            int nRead;
-            while ((nRead = in.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
+        try {
+            if (presignedRedirect) {
+                Optional<URI> url = storageService.presignDownload(key, presignedValidity, mediaType.toString(), contentDisposition);
+                if (url.isPresent()) {
+                    return ResponseEntity.status(HttpStatus.FOUND).location(url.get()).build();
+                }
             }
 
-            byte[] bytes = buffer.toByteArray();
-            MediaType mediaType = determineMediaType(document);
-
-            String filename = document.getFilename() != null && !document.getFilename().isBlank()
-                ? document.getFilename()
-                : document.getId() + "";
+            Optional<StorageService.ObjectMetadata> metadata = storageService.getMetadata(key);
+            if (metadata.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            StorageService.ObjectMetadata object = metadata.get();
+            long length = object.contentLength();
+
+            List<HttpRange> ranges = parseRanges(requestHeaders);
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long start;
+                long end;
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+                }
+                return contentResponse(HttpStatus.PARTIAL_CONTENT, object, mediaType, contentDisposition)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length)
+                    .body(new StoredContentResource(() -> storageService.downloadRange(key, start, end), end - start + 1, filename));
+            }
 
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                .contentType(mediaType)
-                .body(bytes);
+            // Spring answers If-None-Match / If-Modified-Since with 304 for this
+            // response before the storage stream is ever opened.
+            return contentResponse(HttpStatus.OK, object, mediaType, contentDisposition)
+                .body(new StoredContentResource(() -> storageService.downloadFile(key), length, filename));
         } catch (Exception e) {
             logger.error("Failed to load content for document {} with key {}: {}", documentId, key, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -92,6 +139,34 @@ public class DocumentController {
         }
     }
 
+    private ResponseEntity.BodyBuilder contentResponse(
+            HttpStatus status,
+            StorageService.ObjectMetadata object,
+            MediaType mediaType,
+            String contentDisposition) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status)
+            .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+            .contentType(mediaType)
+            // Stored objects never change, but let the browser check back instead of guessing.
+            .cacheControl(CacheControl.noCache().cachePrivate());
+        if (object.eTag() != null) {
+            builder.eTag(object.eTag());
+        }
+        if (object.lastModified() != null) {
+            builder.lastModified(object.lastModified());
+        }
+        return builder;
+    }
+
+    private List<HttpRange> parseRanges(HttpHeaders requestHeaders) {
+        try {
+            return requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            // Malformed Range headers are ignored and the full content is sent.
+            return List.of();
+        }
+    }
+
     private MediaType determineMediaType(Document document) {
         DocumentType type = document.getType();
         String filename = document.getFilename() != null ? document.getFilename().toLowerCase() : "";
@@ -106,4 +181,41 @@ public class DocumentController {
     }
 
     public record ReextractResponse(String message) {}
+
+    /**
+     * Resource over a storage object that is only opened when the response
+     * body is written, so 304 responses never touch storage.
+     */
+    private static class StoredContentResource extends AbstractResource {
+
+        private final Supplier<InputStream> opener;
+        private final long contentLength;
+        private final String filename;
+
+        StoredContentResource(Supplier<InputStream> opener, long contentLength, String filename) {
+            this.opener = opener;
+            this.contentLength = contentLength;
+            this.filename = filename;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return opener.get();
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Stored document content [" + filename + "]";
+        }
+    }
 }
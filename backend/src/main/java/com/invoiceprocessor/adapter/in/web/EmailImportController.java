@@ -1,12 +1,19 @@
 package com.invoiceprocessor.adapter.in.web;
 
 import com.invoiceprocessor.application.usecase.CreateManualStackUseCase;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartRequest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,7 +27,7 @@ public class EmailImportController {
         this.createManualStackUseCase = createManualStackUseCase;
     }
 
-    @PostMapping
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ImportEmailResponse> importEmail(@RequestBody EmailImportRequest request) {
         CreateManualStackUseCase.CreateManualStackRequest internalRequest =
             new CreateManualStackUseCase.CreateManualStackRequest(
@@ -35,6 +42,93 @@ public class EmailImportController {
         return ResponseEntity.ok(new ImportEmailResponse(stackId));
     }
 
+    /**
+     * Same import as the JSON variant, but attachments arrive as file parts
+     * and are streamed into storage instead of being decoded from base64.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportEmailResponse> importEmailMultipart(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) String body,
+            @RequestPart(value = "attachments", required = false) MultipartFile[] attachments) {
+        CreateManualStackUseCase.CreateManualStackRequest internalRequest =
+            new CreateManualStackUseCase.CreateManualStackRequest(
+                from,
+                to,
+                subject,
+                body,
+                attachments == null ? List.of() : Arrays.stream(attachments)
+                    .map(file -> new CreateManualStackUseCase.AttachmentContent(
+                        file.getOriginalFilename(),
+                        file.getContentType(),
+                        file,
+                        file.getSize()
+                    ))
+                    .toList()
+            );
+
+        UUID stackId = createManualStackUseCase.execute(internalRequest);
+        return ResponseEntity.ok(new ImportEmailResponse(stackId));
+    }
+
+    /**
+     * Imports several emails in one request and one database transaction.
+     * The response holds one result per email, in request order; a failed
+     * email does not fail the others.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchImportResponse> importBatch(@RequestBody List<EmailImportRequest> requests) {
+        List<CreateManualStackUseCase.CreateManualStackRequest> internalRequests = requests.stream()
+            .map(request -> new CreateManualStackUseCase.CreateManualStackRequest(
+                request.getFrom(),
+                request.getTo(),
+                request.getSubject(),
+                request.getBody(),
+                mapAttachments(request.getAttachments())
+            ))
+            .toList();
+        return ResponseEntity.ok(new BatchImportResponse(createManualStackUseCase.executeBatch(internalRequests)));
+    }
+
+    /**
+     * Multipart variant of the batch import. The {@code emails} part is a
+     * JSON array of {@link BatchEmail}; each email lists the names of the
+     * file parts that hold its attachments.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchImportResponse> importBatchMultipart(
+            @RequestPart("emails") List<BatchEmail> emails,
+            MultipartRequest files) {
+        List<CreateManualStackUseCase.CreateManualStackRequest> internalRequests = new ArrayList<>();
+        for (BatchEmail email : emails) {
+            List<CreateManualStackUseCase.AttachmentContent> attachments = new ArrayList<>();
+            if (email.attachments() != null) {
+                for (String partName : email.attachments()) {
+                    MultipartFile file = files.getFile(partName);
+                    if (file == null) {
+                        return ResponseEntity.badRequest().build();
+                    }
+                    attachments.add(new CreateManualStackUseCase.AttachmentContent(
+                        file.getOriginalFilename(),
+                        file.getContentType(),
+                        file,
+                        file.getSize()
+                    ));
+                }
+            }
+            internalRequests.add(new CreateManualStackUseCase.CreateManualStackRequest(
+                email.from(),
+                email.to(),
+                email.subject(),
+                email.body(),
+                attachments
+            ));
+        }
+        return ResponseEntity.ok(new BatchImportResponse(createManualStackUseCase.executeBatch(internalRequests)));
+    }
+
     private List<CreateManualStackUseCase.AttachmentContent> mapAttachments(List<EmailImportRequest.Attachment> attachments) {
         if (attachments == null) {
             return List.of();
@@ -51,5 +145,19 @@ public class EmailImportController {
 
     public record ImportEmailResponse(UUID stackId) {
     }
+
+    /**
+     * @param attachments Names of the multipart file parts holding this email's attachments
+     */
+    public record BatchEmail(
+        String from,
+        String to,
+        String subject,
+        String body,
+        List<String> attachments
+    ) {}
+
+    public record BatchImportResponse(List<CreateManualStackUseCase.BatchItemResult> results) {
+    }
 }
 
@@ -47,6 +47,22 @@ public class StackController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cursor mode of the listing, selected by the presence of the cursor
+     * parameter. Pass an empty cursor for the first page and the returned
+     * nextCursor for the following ones; nextCursor is null on the last page.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ListStacksUseCase.StackCursorResponse> listStacksByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(listStacksUseCase.executeAfter(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping(value = "/manualUpload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ManualStackResponse> manualUpload(
             @RequestParam String from,
@@ -77,18 +93,14 @@ public class StackController {
     }
 
     private List<CreateManualStackUseCase.AttachmentContent> attachmentsWithContent(MultipartFile[] attachments) {
+        // MultipartFile is read lazily during upload instead of being copied into memory here.
         return java.util.Arrays.stream(attachments)
-            .map(file -> {
-                try {
-                    return new CreateManualStackUseCase.AttachmentContent(
-                        file.getOriginalFilename(),
-                        file.getContentType(),
-                        file.getBytes()
-                    );
-                } catch (java.io.IOException e) {
-                    throw new RuntimeException("Failed to read attachment " + file.getOriginalFilename(), e);
-                }
-            })
+            .map(file -> new CreateManualStackUseCase.AttachmentContent(
+                file.getOriginalFilename(),
+                file.getContentType(),
+                file,
+                file.getSize()
+            ))
             .toList();
     }
 
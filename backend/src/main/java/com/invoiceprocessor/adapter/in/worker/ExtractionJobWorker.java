@@ -0,0 +1,262 @@
+package com.invoiceprocessor.adapter.in.worker;
+
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
+import com.invoiceprocessor.application.port.out.LlmUnavailableException;
+import com.invoiceprocessor.application.usecase.ExtractDocumentUseCase;
+import com.invoiceprocessor.domain.entity.ExtractionJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Polls the durable extraction queue and runs claimed jobs on the extraction executor.
+ *
+ * Each instance only claims as many jobs as it has free slots for, so work
+ * spreads across instances instead of piling up in one JVM's memory queue.
+ * Documents of the same stack are extracted in parallel and the stack status
+ * is recomputed once after the last of them finishes. Short text documents
+ * from the claimed batch are extracted together in groups of
+ * {@code extraction.jobs.llm-batch-size}.
+ */
+@Component
+public class ExtractionJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionJobWorker.class);
+
+    private final ExtractionJobRepository jobRepository;
+    private final ExtractDocumentUseCase extractDocumentUseCase;
+    private final TaskExecutor extractionExecutor;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final int llmBatchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final String workerId;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ExtractionJobWorker(
+            ExtractionJobRepository jobRepository,
+            ExtractDocumentUseCase extractDocumentUseCase,
+            @Qualifier("extractionExecutor") TaskExecutor extractionExecutor,
+            @Value("${extraction.worker.concurrency:4}") int concurrency,
+            @Value("${extraction.worker.queue-capacity:16}") int queueCapacity,
+            @Value("${extraction.jobs.batch-size:20}") int batchSize,
+            @Value("${extraction.jobs.llm-batch-size:10}") int llmBatchSize,
+            @Value("${extraction.jobs.lease-seconds:600}") long leaseSeconds,
+            @Value("${extraction.jobs.max-attempts:5}") int maxAttempts,
+            @Value("${extraction.jobs.retry-backoff-ms:30000}") long retryBackoffMs) {
+        this.jobRepository = jobRepository;
+        this.extractDocumentUseCase = extractDocumentUseCase;
+        this.extractionExecutor = extractionExecutor;
+        this.maxInFlight = concurrency + queueCapacity;
+        this.batchSize = batchSize;
+        this.llmBatchSize = llmBatchSize;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.workerId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        int capacity = Math.min(batchSize, maxInFlight - inFlight.get());
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<ExtractionJob> jobs;
+        try {
+            jobs = jobRepository.claimBatch(workerId, capacity);
+        } catch (Exception e) {
+            logger.error("Failed to claim extraction jobs: {}", e.getMessage(), e);
+            return;
+        }
+
+        if (!jobs.isEmpty()) {
+            logger.debug("Worker {} claimed {} extraction jobs", workerId, jobs.size());
+        }
+
+        Set<UUID> batchable = selectBatchCandidates(jobs);
+        Map<UUID, CompletableFuture<Void>> futuresByJob = new HashMap<>();
+        List<ExtractionJob> batchJobs = new ArrayList<>();
+        for (ExtractionJob job : jobs) {
+            if (batchable.contains(job.getDocumentId())) {
+                batchJobs.add(job);
+            } else {
+                futuresByJob.put(job.getId(), dispatch(List.of(job)));
+            }
+        }
+        for (int from = 0; from < batchJobs.size(); from += llmBatchSize) {
+            List<ExtractionJob> group = batchJobs.subList(from, Math.min(from + llmBatchSize, batchJobs.size()));
+            CompletableFuture<Void> future = dispatch(List.copyOf(group));
+            group.forEach(job -> futuresByJob.put(job.getId(), future));
+        }
+
+        Map<UUID, List<ExtractionJob>> jobsByStack = jobs.stream()
+            .collect(Collectors.groupingBy(ExtractionJob::getStackId, LinkedHashMap::new, Collectors.toList()));
+        jobsByStack.forEach((stackId, stackJobs) -> {
+            CompletableFuture<?>[] documents = stackJobs.stream()
+                .map(job -> futuresByJob.get(job.getId()))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(documents).whenComplete((ignored, error) -> refreshStackStatus(stackId));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.jobs.reaper-interval-ms:60000}")
+    public void releaseStaleJobs() {
+        try {
+            int released = jobRepository.releaseStale(Instant.now().minus(lease));
+            if (released > 0) {
+                logger.warn("Released {} extraction jobs whose worker stopped responding", released);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to release stale extraction jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    private Set<UUID> selectBatchCandidates(List<ExtractionJob> jobs) {
+        if (llmBatchSize <= 1 || jobs.size() <= 1) {
+            return Set.of();
+        }
+        try {
+            return extractDocumentUseCase.selectBatchCandidates(
+                jobs.stream().map(ExtractionJob::getDocumentId).toList());
+        } catch (Exception e) {
+            logger.error("Failed to select documents for batched extraction: {}", e.getMessage(), e);
+            return Set.of();
+        }
+    }
+
+    private CompletableFuture<Void> dispatch(List<ExtractionJob> jobs) {
+        inFlight.addAndGet(jobs.size());
+        try {
+            return CompletableFuture.runAsync(() -> run(jobs), extractionExecutor);
+        } catch (RuntimeException e) {
+            inFlight.addAndGet(-jobs.size());
+            jobs.forEach(job -> retryLater(job, e));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void refreshStackStatus(UUID stackId) {
+        try {
+            extractDocumentUseCase.refreshStackStatus(stackId);
+        } catch (Exception e) {
+            logger.error("Failed to refresh status of stack {}: {}", stackId, e.getMessage(), e);
+        }
+    }
+
+    private void run(List<ExtractionJob> jobs) {
+        List<ExtractionJob> runnable = new ArrayList<>();
+        for (ExtractionJob job : jobs) {
+            if (job.getAttempts() > maxAttempts) {
+                giveUp(job, "Exceeded " + maxAttempts + " attempts");
+            } else {
+                runnable.add(job);
+            }
+        }
+
+        try {
+            if (!runnable.isEmpty() && extract(runnable)) {
+                runnable.forEach(this::complete);
+            }
+        } finally {
+            inFlight.addAndGet(-jobs.size());
+        }
+    }
+
+    /**
+     * @return Whether the documents were extracted; otherwise the jobs have been rescheduled or given up
+     */
+    private boolean extract(List<ExtractionJob> jobs) {
+        try {
+            if (jobs.size() == 1) {
+                extractDocumentUseCase.execute(jobs.get(0).getDocumentId());
+            } else {
+                extractDocumentUseCase.executeBatch(jobs.stream().map(ExtractionJob::getDocumentId).toList());
+            }
+            return true;
+        } catch (LlmUnavailableException e) {
+            // Provider outages do not count against the job's attempts.
+            logger.warn("LLM unavailable, postponing extraction of {} documents: {}", jobs.size(), e.getMessage());
+            jobs.forEach(job -> {
+                job.postpone(Instant.now().plus(retryBackoff), e.getMessage());
+                saveQuietly(job);
+            });
+        } catch (Exception e) {
+            for (ExtractionJob job : jobs) {
+                logger.error("Extraction job {} for document {} failed (attempt {}): {}",
+                    job.getId(), job.getDocumentId(), job.getAttempts(), e.getMessage(), e);
+                if (job.getAttempts() >= maxAttempts) {
+                    giveUp(job, e.getMessage());
+                } else {
+                    retryLater(job, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void complete(ExtractionJob job) {
+        try {
+            jobRepository.deleteById(job.getId());
+        } catch (Exception e) {
+            // The extraction is stored; the lease reaper hands the job out again,
+            // and the repeated extraction is served from the result cache.
+            logger.error("Failed to complete extraction job {}: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void retryLater(ExtractionJob job, Exception cause) {
+        long factor = 1L << Math.min(Math.max(job.getAttempts() - 1, 0), 10);
+        job.retryAt(Instant.now().plus(retryBackoff.multipliedBy(factor)), cause.getMessage());
+        saveQuietly(job);
+    }
+
+    private void giveUp(ExtractionJob job, String reason) {
+        logger.error("Giving up on extraction of document {}: {}", job.getDocumentId(), reason);
+        try {
+            extractDocumentUseCase.markFailed(job.getDocumentId());
+        } catch (Exception e) {
+            logger.error("Failed to mark document {} as failed: {}", job.getDocumentId(), e.getMessage(), e);
+        }
+        job.fail(reason);
+        saveQuietly(job);
+    }
+
+    private void saveQuietly(ExtractionJob job) {
+        try {
+            jobRepository.save(job);
+        } catch (Exception e) {
+            // The lease reaper will pick the job up again.
+            logger.error("Failed to update extraction job {}: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.invoiceprocessor.adapter.in.worker;
+
+import com.invoiceprocessor.application.port.out.StackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically recomputes the document counters of recent stacks.
+ *
+ * Counters are maintained whenever a stack status is recomputed, so drift
+ * only comes from document changes that were not followed by a refresh
+ * (e.g. a crash in between). Only stacks received within the lookback
+ * window are checked, which keeps the job cheap on large tables.
+ */
+@Component
+public class StackCounterRepairJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StackCounterRepairJob.class);
+
+    private final StackRepository stackRepository;
+    private final Duration lookback;
+
+    public StackCounterRepairJob(
+            StackRepository stackRepository,
+            @Value("${stacks.counters.repair-lookback-hours:72}") long lookbackHours) {
+        this.stackRepository = stackRepository;
+        this.lookback = Duration.ofHours(lookbackHours);
+    }
+
+    @Scheduled(
+        initialDelayString = "${stacks.counters.repair-interval-ms:900000}",
+        fixedDelayString = "${stacks.counters.repair-interval-ms:900000}")
+    public void repair() {
+        try {
+            int repaired = stackRepository.repairCounters(Instant.now().minus(lookback));
+            if (repaired > 0) {
+                logger.warn("Repaired document counters of {} stacks", repaired);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to repair stack document counters: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.invoiceprocessor.adapter.in.worker;
+
+import com.invoiceprocessor.application.usecase.ArchiveStacksUseCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps the monthly stacks/documents partitions ahead of the calendar and,
+ * when {@code archival.enabled} is set, archives months older than
+ * {@code archival.after-months}.
+ */
+@Component
+public class StackPartitionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StackPartitionJob.class);
+
+    private final ArchiveStacksUseCase archiveStacksUseCase;
+    private final int monthsAhead;
+    private final boolean archivalEnabled;
+    private final int archiveAfterMonths;
+
+    public StackPartitionJob(
+            ArchiveStacksUseCase archiveStacksUseCase,
+            @Value("${archival.partitions-ahead-months:12}") int monthsAhead,
+            @Value("${archival.enabled:false}") boolean archivalEnabled,
+            @Value("${archival.after-months:24}") int archiveAfterMonths) {
+        this.archiveStacksUseCase = archiveStacksUseCase;
+        this.monthsAhead = monthsAhead;
+        this.archivalEnabled = archivalEnabled;
+        this.archiveAfterMonths = archiveAfterMonths;
+    }
+
+    @Scheduled(cron = "${archival.cron:0 30 3 * * *}", zone = "UTC")
+    public void run() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        try {
+            archiveStacksUseCase.preparePartitions(currentMonth.plusMonths(monthsAhead));
+        } catch (Exception e) {
+            logger.error("Failed to create upcoming stack partitions: {}", e.getMessage(), e);
+        }
+
+        if (!archivalEnabled) {
+            return;
+        }
+        try {
+            int archived = archiveStacksUseCase.execute(currentMonth.minusMonths(archiveAfterMonths));
+            if (archived > 0) {
+                logger.info("Archived {} months of stacks", archived);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to archive old stacks: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.invoiceprocessor.adapter.out.cache;
+
+import com.invoiceprocessor.adapter.out.db.ExtractionCacheJpaEntity;
+import com.invoiceprocessor.adapter.out.db.ExtractionCacheJpaRepository;
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier {@link ExtractionResultCache}: a size-bounded LRU map in the heap
+ * in front of the extraction_result_cache table.
+ *
+ * Database hits are promoted into the heap tier. Failures of the database
+ * tier are logged and treated as misses so the cache never blocks extraction.
+ */
+@Component
+public class TieredExtractionResultCache implements ExtractionResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredExtractionResultCache.class);
+
+    private final ExtractionCacheJpaRepository jpaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<CacheKey, InvoiceProcessingService.LlmExtractionResult> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+
+    public TieredExtractionResultCache(
+            ExtractionCacheJpaRepository jpaRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${extraction.cache.memory-max-entries:10000}") int memoryMaxEntries) {
+        this.jpaRepository = jpaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, InvoiceProcessingService.LlmExtractionResult> eldest) {
+                if (size() > memoryMaxEntries) {
+                    memoryEvictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Optional<InvoiceProcessingService.LlmExtractionResult> get(CacheKey key) {
+        InvoiceProcessingService.LlmExtractionResult cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return Optional.of(cached);
+        }
+
+        Optional<InvoiceProcessingService.LlmExtractionResult> persisted = loadPersisted(key);
+        if (persisted.isPresent()) {
+            databaseHits.incrementAndGet();
+            synchronized (memory) {
+                memory.put(key, persisted.get());
+            }
+            return persisted;
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(CacheKey key, InvoiceProcessingService.LlmExtractionResult result) {
+        synchronized (memory) {
+            memory.put(key, result);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jpaRepository.insertIfAbsent(
+                key.contentHash(),
+                key.model(),
+                key.promptVersion(),
+                result.classification().name(),
+                result.invoiceNumber(),
+                result.invoiceDate(),
+                result.supplierName(),
+                result.totalAmount(),
+                result.currency(),
+                Instant.now()
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to persist extraction cache entry {}: {}", key.contentHash(), e.getMessage());
+        }
+    }
+
+    @Override
+    public int invalidateModel(String model) {
+        synchronized (memory) {
+            memory.keySet().removeIf(key -> key.model().equals(model));
+        }
+        Integer removed = transactionTemplate.execute(status -> jpaRepository.deleteByModel(model));
+        return removed != null ? removed : 0;
+    }
+
+    @Override
+    public CacheStats stats() {
+        long memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        return new CacheStats(
+            memoryHits.get(),
+            databaseHits.get(),
+            misses.get(),
+            memoryEntries,
+            memoryEvictions.get()
+        );
+    }
+
+    private Optional<InvoiceProcessingService.LlmExtractionResult> loadPersisted(CacheKey key) {
+        try {
+            return jpaRepository.findById(ExtractionCacheJpaEntity.keyOf(key))
+                .map(ExtractionCacheJpaEntity::toResult);
+        } catch (Exception e) {
+            logger.error("Failed to read extraction cache entry {}: {}", key.contentHash(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
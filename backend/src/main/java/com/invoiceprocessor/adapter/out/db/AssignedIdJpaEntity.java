@@ -0,0 +1,62 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Base for entities whose UUID is assigned by the application.
+ *
+ * Spring Data cannot tell from an assigned id whether a row exists, so by
+ * default every save is a merge that first SELECTs the row. {@link #saveAll}
+ * decides persist vs. merge for a whole batch with one query instead.
+ */
+@MappedSuperclass
+public abstract class AssignedIdJpaEntity implements Persistable<UUID> {
+
+    @Transient
+    private boolean newEntity;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    /**
+     * Saves the entities with one lookup for the whole batch. Existing rows
+     * are loaded into the persistence context, so their merge does not query
+     * again; the others are persisted directly. Inserts and updates are sent
+     * in JDBC batches on flush (see {@code hibernate.jdbc.batch_size}).
+     * Must run inside a transaction.
+     */
+    static <E extends AssignedIdJpaEntity> List<E> saveAll(JpaRepository<E, UUID> repository, List<E> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> existing = repository.findAllById(entities.stream().map(AssignedIdJpaEntity::getId).toList())
+            .stream()
+            .map(AssignedIdJpaEntity::getId)
+            .collect(Collectors.toSet());
+        for (AssignedIdJpaEntity entity : entities) {
+            entity.newEntity = !existing.contains(entity.getId());
+        }
+        return repository.saveAll(entities);
+    }
+
+    /**
+     * Persists entities that are known to have no row yet, without looking
+     * them up first. Must run inside a transaction.
+     */
+    static <E extends AssignedIdJpaEntity> List<E> insertAll(JpaRepository<E, UUID> repository, List<E> entities) {
+        for (AssignedIdJpaEntity entity : entities) {
+            entity.newEntity = true;
+        }
+        return repository.saveAll(entities);
+    }
+}
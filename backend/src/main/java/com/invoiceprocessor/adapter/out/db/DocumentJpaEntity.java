@@ -10,6 +10,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
@@ -18,7 +19,7 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class DocumentJpaEntity {
+public class DocumentJpaEntity extends AssignedIdJpaEntity {
     @Id
     @Column(columnDefinition = "UUID")
     private UUID id;
@@ -26,6 +27,9 @@ public class DocumentJpaEntity {
     @Column(name = "stack_id", columnDefinition = "UUID", nullable = false)
     private UUID stackId;
 
+    @Column(nullable = false)
+    private Instant receivedAt;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private DocumentType type;
@@ -47,6 +51,7 @@ public class DocumentJpaEntity {
         DocumentJpaEntity entity = new DocumentJpaEntity();
         entity.setId(document.getId());
         entity.setStackId(document.getStackId());
+        entity.setReceivedAt(document.getReceivedAt());
         entity.setType(document.getType());
         entity.setFilename(document.getFilename());
         entity.setContentLocation(document.getContentLocation());
@@ -59,6 +64,7 @@ public class DocumentJpaEntity {
         Document document = new Document();
         document.setId(this.id);
         document.setStackId(this.stackId);
+        document.setReceivedAt(this.receivedAt);
         document.setType(this.type);
         document.setFilename(this.filename);
         document.setContentLocation(this.contentLocation);
@@ -1,12 +1,35 @@
 package com.invoiceprocessor.adapter.out.db;
 
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
+import com.invoiceprocessor.domain.entity.LlmClassification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface DocumentJpaRepository extends JpaRepository<DocumentJpaEntity, UUID> {
     List<DocumentJpaEntity> findByStackId(UUID stackId);
+
+    // Status transitions write their columns directly instead of merging,
+    // which would first SELECT every document that isn't already loaded.
+    @Modifying
+    @Query("UPDATE DocumentJpaEntity d SET d.extractionStatus = :status WHERE d.id IN :ids")
+    int updateExtractionStatus(@Param("ids") Collection<UUID> ids, @Param("status") ExtractionStatus status);
+
+    @Modifying
+    @Query("""
+        UPDATE DocumentJpaEntity d
+        SET d.llmClassification = :classification, d.extractionStatus = :status
+        WHERE d.id = :id
+        """)
+    int updateExtractionResult(
+        @Param("id") UUID id,
+        @Param("classification") LlmClassification classification,
+        @Param("status") ExtractionStatus status);
 }
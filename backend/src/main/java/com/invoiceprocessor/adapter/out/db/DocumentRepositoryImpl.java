@@ -2,8 +2,11 @@ package com.invoiceprocessor.adapter.out.db;
 
 import com.invoiceprocessor.application.port.out.DocumentRepository;
 import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +28,18 @@ public class DocumentRepositoryImpl implements DocumentRepository {
         return entity.toDomain();
     }
 
+    @Override
+    @Transactional
+    public List<Document> saveAll(Collection<Document> documents) {
+        List<DocumentJpaEntity> entities = documents.stream()
+            .map(DocumentJpaEntity::fromDomain)
+            .toList();
+        return AssignedIdJpaEntity.saveAll(jpaRepository, entities)
+            .stream()
+            .map(DocumentJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<Document> findById(UUID id) {
         return jpaRepository.findById(id)
@@ -38,4 +53,27 @@ public class DocumentRepositoryImpl implements DocumentRepository {
             .map(DocumentJpaEntity::toDomain)
             .collect(Collectors.toList());
     }
+
+    @Override
+    public List<Document> findByIds(Collection<UUID> ids) {
+        return jpaRepository.findAllById(ids)
+            .stream()
+            .map(DocumentJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void updateExtractionStatus(Collection<UUID> ids, ExtractionStatus status) {
+        if (!ids.isEmpty()) {
+            jpaRepository.updateExtractionStatus(ids, status);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateExtractionResult(Document document) {
+        jpaRepository.updateExtractionResult(
+            document.getId(), document.getLlmClassification(), document.getExtractionStatus());
+    }
 }
@@ -0,0 +1,81 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
+import com.invoiceprocessor.domain.entity.LlmClassification;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "extraction_result_cache")
+@IdClass(ExtractionCacheJpaEntity.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionCacheJpaEntity {
+    @Id
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Id
+    @Column(nullable = false)
+    private String model;
+
+    @Id
+    @Column(name = "prompt_version", nullable = false, length = 50)
+    private String promptVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LlmClassification classification;
+
+    private String invoiceNumber;
+
+    private LocalDate invoiceDate;
+
+    private String supplierName;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public static Key keyOf(ExtractionResultCache.CacheKey key) {
+        return new Key(key.contentHash(), key.model(), key.promptVersion());
+    }
+
+    public InvoiceProcessingService.LlmExtractionResult toResult() {
+        return new InvoiceProcessingService.LlmExtractionResult(
+            this.classification,
+            this.invoiceNumber,
+            this.invoiceDate,
+            this.supplierName,
+            this.totalAmount,
+            this.currency
+        );
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String contentHash;
+        private String model;
+        private String promptVersion;
+    }
+}
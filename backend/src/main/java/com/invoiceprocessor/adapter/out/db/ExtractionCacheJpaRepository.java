@@ -0,0 +1,41 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Repository
+public interface ExtractionCacheJpaRepository extends JpaRepository<ExtractionCacheJpaEntity, ExtractionCacheJpaEntity.Key> {
+
+    // Concurrent workers may extract identical documents at the same time; the
+    // first result wins and the others are dropped instead of failing.
+    @Modifying
+    @Query(value = """
+        INSERT INTO extraction_result_cache
+            (content_hash, model, prompt_version, classification, invoice_number, invoice_date,
+             supplier_name, total_amount, currency, created_at)
+        VALUES (:contentHash, :model, :promptVersion, :classification, :invoiceNumber, :invoiceDate,
+                :supplierName, :totalAmount, :currency, :createdAt)
+        ON CONFLICT DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash,
+                       @Param("model") String model,
+                       @Param("promptVersion") String promptVersion,
+                       @Param("classification") String classification,
+                       @Param("invoiceNumber") String invoiceNumber,
+                       @Param("invoiceDate") LocalDate invoiceDate,
+                       @Param("supplierName") String supplierName,
+                       @Param("totalAmount") BigDecimal totalAmount,
+                       @Param("currency") String currency,
+                       @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("DELETE FROM ExtractionCacheJpaEntity e WHERE e.model = :model")
+    int deleteByModel(@Param("model") String model);
+}
@@ -0,0 +1,91 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.domain.entity.ExtractionJob;
+import com.invoiceprocessor.domain.entity.ExtractionJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "extraction_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionJobJpaEntity {
+    @Id
+    @Column(columnDefinition = "UUID")
+    private UUID id;
+
+    @Column(name = "document_id", columnDefinition = "UUID", nullable = false)
+    private UUID documentId;
+
+    @Column(name = "stack_id", columnDefinition = "UUID", nullable = false)
+    private UUID stackId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExtractionJobStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @Column(name = "locked_at")
+    private Instant lockedAt;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public static ExtractionJobJpaEntity fromDomain(ExtractionJob job) {
+        ExtractionJobJpaEntity entity = new ExtractionJobJpaEntity();
+        entity.setId(job.getId());
+        entity.setDocumentId(job.getDocumentId());
+        entity.setStackId(job.getStackId());
+        entity.setStatus(job.getStatus());
+        entity.setAttempts(job.getAttempts());
+        entity.setAvailableAt(job.getAvailableAt());
+        entity.setLockedBy(job.getLockedBy());
+        entity.setLockedAt(job.getLockedAt());
+        entity.setLastError(truncate(job.getLastError()));
+        entity.setCreatedAt(job.getCreatedAt());
+        entity.setUpdatedAt(job.getUpdatedAt());
+        return entity;
+    }
+
+    public ExtractionJob toDomain() {
+        ExtractionJob job = new ExtractionJob();
+        job.setId(this.id);
+        job.setDocumentId(this.documentId);
+        job.setStackId(this.stackId);
+        job.setStatus(this.status);
+        job.setAttempts(this.attempts);
+        job.setAvailableAt(this.availableAt);
+        job.setLockedBy(this.lockedBy);
+        job.setLockedAt(this.lockedAt);
+        job.setLastError(this.lastError);
+        job.setCreatedAt(this.createdAt);
+        job.setUpdatedAt(this.updatedAt);
+        return job;
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > 2000 ? value.substring(0, 2000) : value;
+    }
+}
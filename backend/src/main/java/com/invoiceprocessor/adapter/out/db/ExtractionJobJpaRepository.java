@@ -0,0 +1,43 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ExtractionJobJpaRepository extends JpaRepository<ExtractionJobJpaEntity, UUID> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO extraction_jobs (id, document_id, stack_id, status, attempts, available_at, created_at, updated_at)
+        VALUES (:id, :documentId, :stackId, 'PENDING', 0, :now, :now, :now)
+        ON CONFLICT (document_id) WHERE status = 'PENDING' DO NOTHING
+        """, nativeQuery = true)
+    int insertPending(@Param("id") UUID id,
+                      @Param("documentId") UUID documentId,
+                      @Param("stackId") UUID stackId,
+                      @Param("now") Instant now);
+
+    @Query(value = """
+        SELECT * FROM extraction_jobs
+        WHERE status = 'PENDING' AND available_at <= :now
+        ORDER BY available_at
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<ExtractionJobJpaEntity> lockPending(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+        UPDATE extraction_jobs
+        SET status = 'PENDING', locked_by = NULL, locked_at = NULL, available_at = :now, updated_at = :now
+        WHERE status = 'RUNNING' AND locked_at < :lockedBefore
+        """, nativeQuery = true)
+    int releaseStale(@Param("lockedBefore") Instant lockedBefore, @Param("now") Instant now);
+}
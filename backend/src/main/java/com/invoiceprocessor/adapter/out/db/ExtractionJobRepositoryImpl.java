@@ -0,0 +1,65 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
+import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.ExtractionJob;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Component
+public class ExtractionJobRepositoryImpl implements ExtractionJobRepository {
+
+    private final ExtractionJobJpaRepository jpaRepository;
+
+    public ExtractionJobRepositoryImpl(ExtractionJobJpaRepository jpaRepository) {
+        this.jpaRepository = jpaRepository;
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(List<Document> documents) {
+        Instant now = Instant.now();
+        for (Document document : documents) {
+            jpaRepository.insertPending(UUID.randomUUID(), document.getId(), document.getStackId(), now);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<ExtractionJob> claimBatch(String workerId, int limit) {
+        Instant now = Instant.now();
+        // The row locks taken here are held until commit; by then the jobs are
+        // RUNNING and no longer match the pending filter of other workers.
+        return jpaRepository.lockPending(now, limit)
+            .stream()
+            .map(entity -> {
+                ExtractionJob job = entity.toDomain();
+                job.claim(workerId, now);
+                return jpaRepository.save(ExtractionJobJpaEntity.fromDomain(job)).toDomain();
+            })
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public ExtractionJob save(ExtractionJob job) {
+        ExtractionJobJpaEntity entity = ExtractionJobJpaEntity.fromDomain(job);
+        entity = jpaRepository.save(entity);
+        return entity.toDomain();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        jpaRepository.deleteById(id);
+    }
+
+    @Override
+    @Transactional
+    public int releaseStale(Instant lockedBefore) {
+        return jpaRepository.releaseStale(lockedBefore, Instant.now());
+    }
+}
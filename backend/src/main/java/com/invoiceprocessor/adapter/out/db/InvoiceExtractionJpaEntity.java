@@ -17,7 +17,7 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class InvoiceExtractionJpaEntity {
+public class InvoiceExtractionJpaEntity extends AssignedIdJpaEntity {
     @Id
     @Column(columnDefinition = "UUID")
     private UUID id;
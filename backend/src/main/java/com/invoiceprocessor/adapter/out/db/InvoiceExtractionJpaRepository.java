@@ -1,13 +1,26 @@
 package com.invoiceprocessor.adapter.out.db;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface InvoiceExtractionJpaRepository extends JpaRepository<InvoiceExtractionJpaEntity, UUID> {
     Optional<InvoiceExtractionJpaEntity> findByDocumentId(UUID documentId);
-    void deleteByDocumentId(UUID documentId);
+
+    List<InvoiceExtractionJpaEntity> findByDocumentIdIn(Collection<UUID> documentIds);
+
+    // Bulk delete runs immediately, so a replacement extraction for the same
+    // document can be inserted in the same transaction without tripping the
+    // unique constraint on document_id.
+    @Modifying
+    @Query("DELETE FROM InvoiceExtractionJpaEntity e WHERE e.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") UUID documentId);
 }
@@ -3,9 +3,13 @@ package com.invoiceprocessor.adapter.out.db;
 import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
 import com.invoiceprocessor.domain.entity.InvoiceExtraction;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 public class InvoiceExtractionRepositoryImpl implements InvoiceExtractionRepository {
@@ -23,12 +27,47 @@ public class InvoiceExtractionRepositoryImpl implements InvoiceExtractionReposit
         return entity.toDomain();
     }
 
+    @Override
+    @Transactional
+    public List<InvoiceExtraction> saveAll(Collection<InvoiceExtraction> extractions) {
+        List<InvoiceExtractionJpaEntity> entities = extractions.stream()
+            .map(InvoiceExtractionJpaEntity::fromDomain)
+            .toList();
+        return AssignedIdJpaEntity.saveAll(jpaRepository, entities)
+            .stream()
+            .map(InvoiceExtractionJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<InvoiceExtraction> insertAll(Collection<InvoiceExtraction> extractions) {
+        List<InvoiceExtractionJpaEntity> entities = extractions.stream()
+            .map(InvoiceExtractionJpaEntity::fromDomain)
+            .toList();
+        return AssignedIdJpaEntity.insertAll(jpaRepository, entities)
+            .stream()
+            .map(InvoiceExtractionJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<InvoiceExtraction> findByDocumentId(UUID documentId) {
         return jpaRepository.findByDocumentId(documentId)
             .map(InvoiceExtractionJpaEntity::toDomain);
     }
 
+    @Override
+    public List<InvoiceExtraction> findByDocumentIds(Collection<UUID> documentIds) {
+        if (documentIds.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepository.findByDocumentIdIn(documentIds)
+            .stream()
+            .map(InvoiceExtractionJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public void deleteByDocumentId(UUID documentId) {
         jpaRepository.deleteByDocumentId(documentId);
@@ -0,0 +1,185 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.StackArchiveRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partition DDL for the monthly stacks/documents partitions created in
+ * migration V9. Partition names follow {@code <table>_pYYYY_MM} and cover
+ * one calendar month in UTC. Partitions are created months ahead, so the
+ * default partitions stay empty; rows found there are reported instead of
+ * being moved at runtime.
+ */
+@Component
+public class StackArchiveRepositoryImpl implements StackArchiveRepository {
+
+    private static final String LOCK_TIMEOUT = "5s";
+    private static final Pattern STACK_PARTITION = Pattern.compile("stacks_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StackArchiveRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    // The other months' partitions are kept when stray default rows are reported.
+    @Transactional(noRollbackFor = IllegalStateException.class)
+    public void createPartitionsThrough(YearMonth month) {
+        // Fail this run rather than queue ingest behind a lock we are waiting for.
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+
+        List<YearMonth> blocked = new ArrayList<>();
+        for (YearMonth current = YearMonth.now(ZoneOffset.UTC); !current.isAfter(month); current = current.plusMonths(1)) {
+            if (exists(partition("stacks", current)) && exists(partition("documents", current))) {
+                continue;
+            }
+            // Attaching a month whose rows already sit in the default partition fails; leave those to an operator.
+            if (hasDefaultRows(current)) {
+                blocked.add(current);
+                continue;
+            }
+            attachPartition("stacks", current);
+            attachPartition("documents", current);
+        }
+
+        Long strayStacks = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stacks_pdefault", Long.class);
+        if (strayStacks != null && strayStacks > 0) {
+            throw new IllegalStateException(strayStacks + " stacks are in the default partition"
+                + (blocked.isEmpty() ? "" : ", blocking the partitions of " + blocked)
+                + "; create their monthly partitions and move the rows there by hand");
+        }
+    }
+
+    /**
+     * Creates the month's table on its own and attaches it, which only takes
+     * a SHARE UPDATE EXCLUSIVE lock on the parent; CREATE TABLE ... PARTITION
+     * OF would lock the parent exclusively. The empty default partition is
+     * locked briefly while Postgres checks that it has no rows of the month.
+     */
+    private void attachPartition(String table, YearMonth month) {
+        String name = partition(table, month);
+        if (exists(name)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + quoted(name) + " (LIKE " + quoted(table) + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        // Only (id, received_at) can be unique across partitions; ids stay unique within each one.
+        jdbcTemplate.execute("CREATE UNIQUE INDEX " + quoted(name + "_id_key") + " ON " + quoted(name) + " (id)");
+        jdbcTemplate.execute("ALTER TABLE " + quoted(table) + " ATTACH PARTITION " + quoted(name)
+            + " FOR VALUES FROM (" + utcStartOf(month) + ") TO (" + utcStartOf(month.plusMonths(1)) + ")");
+    }
+
+    private boolean hasDefaultRows(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM stacks_pdefault WHERE received_at >= ? AND received_at < ?)",
+            Boolean.class,
+            month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC),
+            month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC)));
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    @Override
+    public List<YearMonth> findAttachedMonthsBefore(YearMonth month) {
+        List<String> names = jdbcTemplate.queryForList("""
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'stacks'::regclass
+            """, String.class);
+
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = STACK_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                YearMonth partitionMonth = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                if (partitionMonth.isBefore(month)) {
+                    months.add(partitionMonth);
+                }
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    @Override
+    public List<StoredDocument> findDocuments(YearMonth month, UUID afterId, int limit) {
+        String table = partition("documents", month);
+        if (afterId == null) {
+            return jdbcTemplate.query(
+                "SELECT id, content_location FROM " + quoted(table) + " ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new StoredDocument(rs.getObject("id", UUID.class), rs.getString("content_location")),
+                limit);
+        }
+        return jdbcTemplate.query(
+            "SELECT id, content_location FROM " + quoted(table) + " WHERE id > ? ORDER BY id LIMIT ?",
+            (rs, rowNum) -> new StoredDocument(rs.getObject("id", UUID.class), rs.getString("content_location")),
+            afterId, limit);
+    }
+
+    @Override
+    public void updateContentLocation(YearMonth month, UUID documentId, String contentLocation) {
+        jdbcTemplate.update(
+            "UPDATE " + quoted(partition("documents", month)) + " SET content_location = ? WHERE id = ?",
+            contentLocation, documentId);
+    }
+
+    @Override
+    @Transactional
+    public void detachMonth(YearMonth month, boolean drop) {
+        String documents = quoted(partition("documents", month));
+        String stacks = quoted(partition("stacks", month));
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+
+        // invoice_extractions and extraction_jobs have no foreign key into the
+        // partitioned documents table, so their rows are handled explicitly.
+        if (!drop) {
+            jdbcTemplate.execute("CREATE TABLE " + quoted(partition("invoice_extractions", month))
+                + " AS SELECT e.* FROM invoice_extractions e JOIN " + documents + " d ON d.id = e.document_id");
+        }
+        jdbcTemplate.update("DELETE FROM invoice_extractions e USING " + documents + " d WHERE e.document_id = d.id");
+        jdbcTemplate.update("DELETE FROM extraction_jobs j USING " + documents + " d WHERE j.document_id = d.id");
+
+        // Documents first: a stacks partition can only be detached once no
+        // attached document references it.
+        jdbcTemplate.execute("ALTER TABLE documents DETACH PARTITION " + documents);
+        // The detached table keeps its copy of the foreign key, which would block detaching its stacks.
+        jdbcTemplate.execute("ALTER TABLE " + documents + " DROP CONSTRAINT IF EXISTS fk_documents_stack");
+        jdbcTemplate.execute("ALTER TABLE stacks DETACH PARTITION " + stacks);
+
+        if (drop) {
+            jdbcTemplate.execute("DROP TABLE " + documents);
+            jdbcTemplate.execute("DROP TABLE " + stacks);
+        }
+    }
+
+    private static String partition(String table, YearMonth month) {
+        return String.format("%s_p%04d_%02d", table, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Quotes an identifier the way {@code format('%I')} does.
+     */
+    private static String quoted(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Partition bound literal for the first instant of the month in UTC.
+     */
+    private static String utcStartOf(YearMonth month) {
+        return "'" + month.atDay(1) + " 00:00:00+00'";
+    }
+}
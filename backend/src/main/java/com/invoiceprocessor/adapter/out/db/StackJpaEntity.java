@@ -17,7 +17,7 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class StackJpaEntity {
+public class StackJpaEntity extends AssignedIdJpaEntity {
     @Id
     @Column(columnDefinition = "UUID")
     private UUID id;
@@ -38,6 +38,15 @@ public class StackJpaEntity {
     @Column(nullable = false)
     private StackStatus status;
 
+    @Column(nullable = false)
+    private int documentCount;
+
+    @Column(nullable = false)
+    private int invoiceCount;
+
+    @Column(nullable = false)
+    private int errorCount;
+
     public static StackJpaEntity fromDomain(Stack stack) {
         StackJpaEntity entity = new StackJpaEntity();
         entity.setId(stack.getId());
@@ -46,6 +55,9 @@ public class StackJpaEntity {
         entity.setToAddress(stack.getToAddress());
         entity.setSubject(stack.getSubject());
         entity.setStatus(stack.getStatus());
+        entity.setDocumentCount(stack.getDocumentCount());
+        entity.setInvoiceCount(stack.getInvoiceCount());
+        entity.setErrorCount(stack.getErrorCount());
         return entity;
     }
 
@@ -57,6 +69,9 @@ public class StackJpaEntity {
         stack.setToAddress(this.toAddress);
         stack.setSubject(this.subject);
         stack.setStatus(this.status);
+        stack.setDocumentCount(this.documentCount);
+        stack.setInvoiceCount(this.invoiceCount);
+        stack.setErrorCount(this.errorCount);
         return stack;
     }
 }
@@ -1,12 +1,59 @@
 package com.invoiceprocessor.adapter.out.db;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface StackJpaRepository extends JpaRepository<StackJpaEntity, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StackJpaEntity s WHERE s.id = :id")
+    Optional<StackJpaEntity> findByIdForUpdate(@Param("id") UUID id);
+
+    // Keyset page: seeks past the last row of the previous page on
+    // idx_stacks_received_at_id instead of skipping rows with OFFSET. Native
+    // for the row-value comparison, which Postgres turns into one index range
+    // where the equivalent OR is filtered row by row.
+    @Query(value = """
+        SELECT * FROM stacks
+        WHERE (received_at, id) < (:receivedAt, :id)
+        ORDER BY received_at DESC, id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<StackJpaEntity> findAfter(
+        @Param("receivedAt") Instant receivedAt,
+        @Param("id") UUID id,
+        @Param("limit") int limit);
+
+    // Only rows whose counters disagree with their documents are written.
+    @Modifying
+    @Query("""
+        UPDATE StackJpaEntity s
+        SET s.documentCount = (SELECT COUNT(d) FROM DocumentJpaEntity d WHERE d.stackId = s.id),
+            s.invoiceCount = (SELECT COUNT(d) FROM DocumentJpaEntity d
+                              WHERE d.stackId = s.id AND d.extractionStatus = :invoiceStatus),
+            s.errorCount = (SELECT COUNT(d) FROM DocumentJpaEntity d
+                            WHERE d.stackId = s.id AND d.extractionStatus = :errorStatus)
+        WHERE s.receivedAt >= :receivedSince
+          AND (s.documentCount <> (SELECT COUNT(d) FROM DocumentJpaEntity d WHERE d.stackId = s.id)
+            OR s.invoiceCount <> (SELECT COUNT(d) FROM DocumentJpaEntity d
+                                  WHERE d.stackId = s.id AND d.extractionStatus = :invoiceStatus)
+            OR s.errorCount <> (SELECT COUNT(d) FROM DocumentJpaEntity d
+                                WHERE d.stackId = s.id AND d.extractionStatus = :errorStatus))
+        """)
+    int repairCounters(
+        @Param("receivedSince") Instant receivedSince,
+        @Param("invoiceStatus") ExtractionStatus invoiceStatus,
+        @Param("errorStatus") ExtractionStatus errorStatus);
 }
@@ -1,10 +1,15 @@
 package com.invoiceprocessor.adapter.out.db;
 
 import com.invoiceprocessor.application.port.out.StackRepository;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
 import com.invoiceprocessor.domain.entity.Stack;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +18,9 @@ import java.util.stream.Collectors;
 @Component
 public class StackRepositoryImpl implements StackRepository {
 
+    // Newest first, with the id as tie-breaker so pages never overlap or skip rows.
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("receivedAt"), Sort.Order.desc("id"));
+
     private final StackJpaRepository jpaRepository;
 
     public StackRepositoryImpl(StackJpaRepository jpaRepository) {
@@ -26,23 +34,57 @@ public class StackRepositoryImpl implements StackRepository {
         return entity.toDomain();
     }
 
+    @Override
+    @Transactional
+    public List<Stack> saveAll(Collection<Stack> stacks) {
+        List<StackJpaEntity> entities = stacks.stream()
+            .map(StackJpaEntity::fromDomain)
+            .toList();
+        return AssignedIdJpaEntity.saveAll(jpaRepository, entities)
+            .stream()
+            .map(StackJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<Stack> findById(UUID id) {
         return jpaRepository.findById(id)
             .map(StackJpaEntity::toDomain);
     }
 
+    @Override
+    public Optional<Stack> findByIdForUpdate(UUID id) {
+        return jpaRepository.findByIdForUpdate(id)
+            .map(StackJpaEntity::toDomain);
+    }
+
     @Override
     public List<Stack> findAll(int page, int size) {
-        return jpaRepository.findAll(PageRequest.of(page, size))
+        return jpaRepository.findAll(PageRequest.of(page, size, NEWEST_FIRST))
             .getContent()
             .stream()
             .map(StackJpaEntity::toDomain)
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Stack> findAfter(Instant receivedAt, UUID id, int size) {
+        List<StackJpaEntity> entities = receivedAt == null
+            ? jpaRepository.findAll(PageRequest.of(0, size, NEWEST_FIRST)).getContent()
+            : jpaRepository.findAfter(receivedAt, id, size);
+        return entities.stream()
+            .map(StackJpaEntity::toDomain)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public long count() {
         return jpaRepository.count();
     }
+
+    @Override
+    @Transactional
+    public int repairCounters(Instant receivedSince) {
+        return jpaRepository.repairCounters(receivedSince, ExtractionStatus.PROCESSED, ExtractionStatus.ERROR);
+    }
 }
@@ -2,11 +2,17 @@ package com.invoiceprocessor.adapter.out.llm;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
 import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.LlmRateLimiter;
+import com.invoiceprocessor.application.port.out.LlmUnavailableException;
 import com.invoiceprocessor.application.port.out.StorageService;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.LlmClassification;
 import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,14 +21,28 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * OpenAI-backed implementation of {@link LlmInvoiceExtractor}.
@@ -34,8 +54,16 @@ import java.time.LocalDate;
  * If the document is not an invoice, the model should respond with
  *   { "isInvoice": false, "message": "not an invoice" }
  *
- * This adapter is deliberately conservative: on any failure it falls back
- * to classifying the document as NOT_INVOICE so the pipeline can continue.
+ * Timeouts and 5xx responses are retried with jittered exponential
+ * backoff. If they persist, or the circuit breaker is open after repeated
+ * failures, {@link LlmUnavailableException} is thrown so the document stays
+ * queued. 429 responses are retried by the {@link LlmRateLimiter} only; one
+ * that still comes through leaves the document queued as well, without
+ * counting against the circuit breaker. Any other failure falls back to
+ * classifying the document as NOT_INVOICE so the pipeline can continue.
+ *
+ * Answers are cached by the SHA-256 of the document bytes, so re-sent
+ * attachments skip the model call. Fallback results are never cached.
  */
 @Component
 public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
@@ -43,8 +71,21 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
     private static final Logger logger = LoggerFactory.getLogger(OpenAiLlmInvoiceExtractor.class);
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    // Part of the cache key; bump whenever the prompts or the response mapping change.
+    static final String PROMPT_VERSION = "v2";
+
     private final RestTemplate restTemplate;
     private final StorageService storageService;
+    private final ExtractionResultCache resultCache;
+    private final LlmRateLimiter rateLimiter;
+    private final boolean cacheEnabled;
+    private final int maxBatchDocumentChars;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter retries;
+    private final Counter rejected;
     private final String apiKey;
     private final String model;
     private final String apiUrl;
@@ -52,6 +93,16 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
     public OpenAiLlmInvoiceExtractor(
             RestTemplateBuilder restTemplateBuilder,
             StorageService storageService,
+            ExtractionResultCache resultCache,
+            LlmRateLimiter rateLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${extraction.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${openai.batch.max-document-chars:2000}") int maxBatchDocumentChars,
+            @Value("${openai.retry.max-attempts:3}") int maxAttempts,
+            @Value("${openai.retry.initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${openai.retry.max-backoff-ms:15000}") long maxBackoffMs,
+            @Value("${openai.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${openai.circuit-breaker.open-seconds:60}") long openSeconds,
             @Value("${openai.api.key:}") String apiKey,
             @Value("${openai.model:gpt-4o-mini}") String model,
             @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}") String apiUrl) {
@@ -60,6 +111,20 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
             .setReadTimeout(Duration.ofSeconds(30))
             .build();
         this.storageService = storageService;
+        this.resultCache = resultCache;
+        this.rateLimiter = rateLimiter;
+        this.cacheEnabled = cacheEnabled;
+        this.maxBatchDocumentChars = maxBatchDocumentChars;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds), Clock.systemUTC());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.retries = meterRegistry.counter("llm.extraction.retries");
+        this.rejected = meterRegistry.counter("llm.extraction.circuit.rejected");
+        // 0 = closed, 1 = half-open, 2 = open
+        Gauge.builder("llm.extraction.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+            .description("State of the LLM extraction circuit breaker")
+            .register(meterRegistry);
         this.apiKey = apiKey;
         this.model = model;
         this.apiUrl = apiUrl;
@@ -72,23 +137,195 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
             return notInvoiceResult();
         }
 
-        String content = loadDocumentContent(document);
+        PreparedDocument prepared = prepare(document);
+        if (prepared == null) {
+            return notInvoiceResult();
+        }
+        return withDefaultDate(prepared.cached() != null ? prepared.cached() : extractSingle(prepared));
+    }
+
+    /**
+     * Sends small documents together in one request; documents over
+     * {@code openai.batch.max-document-chars} are still extracted one by one.
+     * Documents missing from, or unparseable in, the combined answer fall
+     * back to single calls.
+     */
+    @Override
+    public Map<UUID, InvoiceProcessingService.LlmExtractionResult> extractBatch(List<Document> documents) {
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results = new HashMap<>();
+        if (apiKey == null || apiKey.isBlank()) {
+            logger.warn("OpenAI API key is not configured. Classifying {} documents as NOT_INVOICE.", documents.size());
+            documents.forEach(document -> results.put(document.getId(), notInvoiceResult()));
+            return results;
+        }
+
+        List<PreparedDocument> combinable = new ArrayList<>();
+        for (Document document : documents) {
+            PreparedDocument prepared = prepare(document);
+            if (prepared == null) {
+                results.put(document.getId(), notInvoiceResult());
+            } else if (prepared.cached() != null) {
+                results.put(document.getId(), prepared.cached());
+            } else if (prepared.content().length() <= maxBatchDocumentChars) {
+                combinable.add(prepared);
+            } else {
+                results.put(document.getId(), extractSingle(prepared));
+            }
+        }
+
+        if (combinable.size() == 1) {
+            PreparedDocument prepared = combinable.get(0);
+            results.put(prepared.document().getId(), extractSingle(prepared));
+        } else if (combinable.size() > 1) {
+            results.putAll(extractCombined(combinable));
+        }
+        results.replaceAll((documentId, result) -> withDefaultDate(result));
+        return results;
+    }
+
+    private PreparedDocument prepare(Document document) {
+        byte[] bytes = loadDocumentBytes(document);
+        String content = bytes != null ? toPromptText(bytes) : null;
         if (content == null || content.isBlank()) {
             logger.warn("Document {} content is empty or could not be loaded. Classifying as NOT_INVOICE.", document.getId());
-            return notInvoiceResult();
+            return null;
+        }
+
+        if (!cacheEnabled) {
+            return new PreparedDocument(document, content, null, null);
+        }
+        ExtractionResultCache.CacheKey cacheKey = new ExtractionResultCache.CacheKey(sha256(bytes), model, PROMPT_VERSION);
+        InvoiceProcessingService.LlmExtractionResult cached = resultCache.get(cacheKey).orElse(null);
+        if (cached != null) {
+            logger.debug("Extraction cache hit for document {}", document.getId());
         }
+        return new PreparedDocument(document, content, cacheKey, cached);
+    }
 
+    private InvoiceProcessingService.LlmExtractionResult extractSingle(PreparedDocument prepared) {
         try {
-            String prompt = buildPrompt(content);
-            String responseJson = callOpenAi(prompt);
-            return mapResponseToResult(responseJson);
+            String prompt = buildPrompt(prepared.content());
+            String responseJson = callWithRetry(prompt);
+            Optional<InvoiceProcessingService.LlmExtractionResult> result = mapResponseToResult(responseJson);
+            if (result.isEmpty()) {
+                logger.warn("OpenAI returned no content for document {}. Classifying as NOT_INVOICE.", prepared.document().getId());
+                return notInvoiceResult();
+            }
+            cache(prepared, result.get());
+            return result.get();
+        } catch (LlmUnavailableException e) {
+            throw e;
         } catch (Exception e) {
-            logger.error("Error while calling OpenAI for document {}: {}", document.getId(), e.getMessage(), e);
+            logger.error("Error while calling OpenAI for document {}: {}", prepared.document().getId(), e.getMessage(), e);
             return notInvoiceResult();
         }
     }
 
-    private String loadDocumentContent(Document document) {
+    private Map<UUID, InvoiceProcessingService.LlmExtractionResult> extractCombined(List<PreparedDocument> batch) {
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results = new HashMap<>();
+        try {
+            String responseJson = callWithRetry(buildBatchPrompt(batch));
+            results.putAll(mapBatchResponse(responseJson, batch));
+        } catch (LlmUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Batched extraction of {} documents failed, falling back to single calls: {}",
+                batch.size(), e.getMessage());
+        }
+
+        for (PreparedDocument prepared : batch) {
+            UUID documentId = prepared.document().getId();
+            InvoiceProcessingService.LlmExtractionResult result = results.get(documentId);
+            if (result == null) {
+                results.put(documentId, extractSingle(prepared));
+            } else {
+                cache(prepared, result);
+            }
+        }
+        return results;
+    }
+
+    private void cache(PreparedDocument prepared, InvoiceProcessingService.LlmExtractionResult result) {
+        if (prepared.cacheKey() != null) {
+            resultCache.put(prepared.cacheKey(), result);
+        }
+    }
+
+    private String callWithRetry(String prompt) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                rejected.increment();
+                throw new LlmUnavailableException("LLM endpoint circuit is open");
+            }
+            boolean outcomeRecorded = false;
+            try {
+                String response = callOpenAi(prompt);
+                circuitBreaker.recordSuccess();
+                outcomeRecorded = true;
+                return response;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LlmUnavailableException("Interrupted while calling the LLM endpoint", e);
+            } catch (Exception e) {
+                if (isRateLimited(e)) {
+                    // The rate limiter has already waited and retried; throttling says nothing about the endpoint's health.
+                    throw new LlmUnavailableException("LLM endpoint still rate limited: " + e.getMessage(), e);
+                }
+                if (!isRetryable(e)) {
+                    // The endpoint answered; the problem is with this request.
+                    circuitBreaker.recordSuccess();
+                    outcomeRecorded = true;
+                    throw e;
+                }
+                circuitBreaker.recordFailure();
+                outcomeRecorded = true;
+                if (attempt >= maxAttempts) {
+                    throw new LlmUnavailableException(
+                        "LLM endpoint unavailable after " + attempt + " attempts: " + e.getMessage(), e);
+                }
+                Duration delay = backoff(attempt);
+                logger.warn("LLM call failed (attempt {}/{}), retrying in {} ms: {}",
+                    attempt, maxAttempts, delay.toMillis(), e.getMessage());
+                retries.increment();
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new LlmUnavailableException("Interrupted while waiting to retry the LLM call", interrupted);
+                }
+            } finally {
+                if (!outcomeRecorded) {
+                    // Rate limited or interrupted: nothing learned about the endpoint, but a
+                    // half-open trial must not stay in flight forever.
+                    circuitBreaker.release();
+                }
+            }
+        }
+    }
+
+    private boolean isRateLimited(Exception e) {
+        return e instanceof HttpStatusCodeException statusException && statusException.getStatusCode().value() == 429;
+    }
+
+    private boolean isRetryable(Exception e) {
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            return statusException.getStatusCode().value() == 408;
+        }
+        return false;
+    }
+
+    private Duration backoff(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        // Equal jitter: wait at least half the backoff, spread the rest so
+        // concurrent workers do not retry in lockstep.
+        long half = cap / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(cap - half + 1));
+    }
+
+    private byte[] loadDocumentBytes(Document document) {
         try {
             String key = document.getContentLocation();
             if (key == null || key.isBlank()) {
@@ -101,13 +338,7 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
                 while ((nRead = in.read(data, 0, data.length)) != -1) {
                     buffer.write(data, 0, nRead);
                 }
-                byte[] bytes = buffer.toByteArray();
-                // For now assume UTF‑8 text; PDFs may not render perfectly but
-                // this keeps the integration lightweight.
-                String text = new String(bytes, StandardCharsets.UTF_8);
-                // Truncate excessively large documents to keep token usage reasonable.
-                int maxLength = 8000;
-                return text.length() > maxLength ? text.substring(0, maxLength) : text;
+                return buffer.toByteArray();
             }
         } catch (Exception e) {
             logger.error("Failed to load document content for {}: {}", document.getId(), e.getMessage(), e);
@@ -115,6 +346,23 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
         }
     }
 
+    private String toPromptText(byte[] bytes) {
+        // For now assume UTF‑8 text; PDFs may not render perfectly but
+        // this keeps the integration lightweight.
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        // Truncate excessively large documents to keep token usage reasonable.
+        int maxLength = 8000;
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
+    private String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private String buildPrompt(String content) {
         return """
             You are an assistant that classifies documents as invoices or not and extracts at most two key fields.
@@ -138,6 +386,38 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
             """ + content + "\n```";
     }
 
+    private String buildBatchPrompt(List<PreparedDocument> batch) {
+        StringBuilder documents = new StringBuilder();
+        for (PreparedDocument prepared : batch) {
+            documents.append("=== DOCUMENT ").append(prepared.document().getId()).append(" ===\n")
+                .append(prepared.content()).append("\n");
+        }
+        return """
+            You are an assistant that classifies documents as invoices or not and extracts at most two key fields.
+
+            Below are several documents, each starting with a line "=== DOCUMENT <id> ===".
+            Classify each document independently and respond in strict JSON with an array
+            containing exactly one object per document:
+            [
+              {
+                "id": the document id exactly as given,
+                "isInvoice": true or false,
+                "amount": number or null,
+                "currency": string or null,
+                "creditor": string or null,
+                "message": string
+              }
+            ]
+
+            Rules:
+            - If a document is clearly an invoice, set isInvoice=true, fill amount (total invoice amount), currency and creditor (supplier name).
+            - If it is not an invoice, set isInvoice=false, amount=null, currency=null, creditor=null and a short message like "not an invoice".
+            - Do NOT include any other fields.
+
+            Documents:
+            """ + documents;
+    }
+
     private String callOpenAi(String prompt) throws Exception {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -159,25 +439,65 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
         logger.debug("Sending extraction request to LLM at {} with prompt: {}", apiUrl, body);
 
         HttpEntity<String> entity = new HttpEntity<>(body, headers);
-        String response = restTemplate.postForObject(apiUrl, entity, String.class);
+        String response = rateLimiter.execute(body, () -> restTemplate.postForObject(apiUrl, entity, String.class));
         if (response == null || response.isBlank()) {
             throw new IllegalStateException("Empty response from OpenAI");
         }
         return response;
     }
 
-    private InvoiceProcessingService.LlmExtractionResult mapResponseToResult(String responseJson) throws Exception {
-        JsonNode root = OBJECT_MAPPER.readTree(responseJson);
-        JsonNode contentNode = root.path("choices").path(0).path("message").path("content");
-        if (contentNode.isMissingNode() || contentNode.asText().isBlank()) {
-            return notInvoiceResult();
+    /**
+     * Returns empty if the response has no content, so the caller's fallback
+     * is not mistaken for an answer of the model.
+     */
+    private Optional<InvoiceProcessingService.LlmExtractionResult> mapResponseToResult(String responseJson) throws Exception {
+        String content = responseContent(responseJson);
+        if (content == null) {
+            return Optional.empty();
         }
 
-        String content = contentNode.asText();
         // Model should return pure JSON; if it wraps it in text, try to parse the first JSON object.
         String jsonPart = extractFirstJsonObject(content);
-        JsonNode result = OBJECT_MAPPER.readTree(jsonPart);
+        return Optional.of(mapResultNode(OBJECT_MAPPER.readTree(jsonPart)));
+    }
 
+    private Map<UUID, InvoiceProcessingService.LlmExtractionResult> mapBatchResponse(
+            String responseJson, List<PreparedDocument> batch) throws Exception {
+        String content = responseContent(responseJson);
+        if (content == null) {
+            throw new IllegalStateException("Empty batched response");
+        }
+
+        int start = content.indexOf('[');
+        int end = content.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            throw new IllegalStateException("Batched response is not a JSON array");
+        }
+        JsonNode array = OBJECT_MAPPER.readTree(content.substring(start, end + 1));
+
+        Map<String, UUID> requestedIds = new HashMap<>();
+        batch.forEach(prepared -> requestedIds.put(prepared.document().getId().toString(), prepared.document().getId()));
+
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results = new HashMap<>();
+        for (JsonNode node : array) {
+            UUID documentId = requestedIds.get(node.path("id").asText(""));
+            if (documentId != null && !results.containsKey(documentId)) {
+                results.put(documentId, mapResultNode(node));
+            }
+        }
+        return results;
+    }
+
+    private String responseContent(String responseJson) throws Exception {
+        JsonNode root = OBJECT_MAPPER.readTree(responseJson);
+        JsonNode contentNode = root.path("choices").path(0).path("message").path("content");
+        if (contentNode.isMissingNode() || contentNode.asText().isBlank()) {
+            return null;
+        }
+        return contentNode.asText();
+    }
+
+    private InvoiceProcessingService.LlmExtractionResult mapResultNode(JsonNode result) {
         boolean isInvoice = result.path("isInvoice").asBoolean(false);
         if (!isInvoice) {
             return notInvoiceResult();
@@ -187,16 +507,36 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
         BigDecimal amount = decimalOrNull(result.path("amount"));
         String currency = textOrNull(result.path("currency"));
 
+        // The prompt asks for no date; withDefaultDate fills it in after the cache.
         return new InvoiceProcessingService.LlmExtractionResult(
             LlmClassification.INVOICE,
             null,
-            LocalDate.now(),
+            null,
             creditor,
             amount,
             currency
         );
     }
 
+    /**
+     * Dates an invoice without an invoice date by the day it is extracted,
+     * on every return rather than in the cached answer, which would keep the
+     * date of its first extraction.
+     */
+    private InvoiceProcessingService.LlmExtractionResult withDefaultDate(InvoiceProcessingService.LlmExtractionResult result) {
+        if (result.classification() != LlmClassification.INVOICE || result.invoiceDate() != null) {
+            return result;
+        }
+        return new InvoiceProcessingService.LlmExtractionResult(
+            result.classification(),
+            result.invoiceNumber(),
+            LocalDate.now(),
+            result.supplierName(),
+            result.totalAmount(),
+            result.currency()
+        );
+    }
+
     private String extractFirstJsonObject(String text) {
         int start = text.indexOf('{');
         int end = text.lastIndexOf('}');
@@ -232,4 +572,11 @@ public class OpenAiLlmInvoiceExtractor implements LlmInvoiceExtractor {
             null
         );
     }
+
+    private record PreparedDocument(
+        Document document,
+        String content,
+        ExtractionResultCache.CacheKey cacheKey,
+        InvoiceProcessingService.LlmExtractionResult cached
+    ) {}
 }
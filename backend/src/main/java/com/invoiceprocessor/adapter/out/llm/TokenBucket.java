@@ -0,0 +1,62 @@
+package com.invoiceprocessor.adapter.out.llm;
+
+/**
+ * Reservation-based token bucket.
+ *
+ * A reservation always succeeds and may drive the balance negative; the
+ * returned delay is how long the caller has to wait until the debt is paid
+ * back. This paces callers evenly at the refill rate instead of letting them
+ * fail and retry in bursts. Not thread-safe; callers synchronize.
+ */
+class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double perMinute, double capacity, long nowNanos) {
+        if (perMinute <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Token bucket rate and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = perMinute / NANOS_PER_MINUTE;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Takes the given amount from the bucket.
+     *
+     * @return Nanoseconds the caller must wait before proceeding, 0 if none
+     */
+    long reserve(double amount, long nowNanos) {
+        refill(nowNanos);
+        tokens -= amount;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / refillPerNano);
+    }
+
+    /**
+     * Empties the bucket, used when the provider reports that the quota is
+     * already exhausted.
+     */
+    void drain(long nowNanos) {
+        refill(nowNanos);
+        tokens = Math.min(tokens, 0);
+    }
+
+    double available(long nowNanos) {
+        refill(nowNanos);
+        return tokens;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.invoiceprocessor.adapter.out.llm;
+
+import com.invoiceprocessor.application.port.out.LlmRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LlmRateLimiter} enforcing the provider's requests-per-minute and
+ * tokens-per-minute quotas with two token buckets, plus a cap on concurrent
+ * requests.
+ *
+ * Token usage is estimated from the request size (roughly four characters
+ * per token) plus a fixed allowance for the completion. When the provider
+ * still answers 429, every caller pauses for the advertised Retry-After
+ * before the request is retried. This is the only place 429 is retried:
+ * after {@code openai.rate-limit.max-retries} the last 429 is rethrown
+ * unchanged, and every other failure passes through on the first attempt.
+ */
+@Component
+public class TokenBucketLlmRateLimiter implements LlmRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBucketLlmRateLimiter.class);
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final Semaphore inFlight;
+    private final int maxRetries;
+    private final int completionTokens;
+    private final Duration defaultRetryAfter;
+    private long pausedUntilNanos;
+
+    public TokenBucketLlmRateLimiter(
+            @Value("${openai.rate-limit.requests-per-minute:500}") int requestsPerMinute,
+            @Value("${openai.rate-limit.tokens-per-minute:200000}") int tokensPerMinute,
+            @Value("${openai.rate-limit.burst-seconds:6}") int burstSeconds,
+            @Value("${openai.rate-limit.max-in-flight:8}") int maxInFlight,
+            @Value("${openai.rate-limit.max-retries:3}") int maxRetries,
+            @Value("${openai.rate-limit.completion-tokens:500}") int completionTokens,
+            @Value("${openai.rate-limit.default-retry-after-ms:2000}") long defaultRetryAfterMs) {
+        long now = System.nanoTime();
+        // Small buckets keep traffic smooth: at most a few seconds' worth of
+        // quota can be spent at once.
+        this.requestBucket = new TokenBucket(requestsPerMinute,
+            Math.max(1.0, requestsPerMinute * burstSeconds / 60.0), now);
+        this.tokenBucket = new TokenBucket(tokensPerMinute,
+            Math.max(1.0, tokensPerMinute * burstSeconds / 60.0), now);
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.maxRetries = maxRetries;
+        this.completionTokens = completionTokens;
+        this.defaultRetryAfter = Duration.ofMillis(defaultRetryAfterMs);
+        this.pausedUntilNanos = now;
+    }
+
+    @Override
+    public <T> T execute(String requestBody, Callable<T> call) throws Exception {
+        int estimatedTokens = (requestBody != null ? requestBody.length() / CHARS_PER_TOKEN : 0) + completionTokens;
+
+        inFlight.acquire();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                awaitQuota(estimatedTokens);
+                try {
+                    return call.call();
+                } catch (HttpStatusCodeException e) {
+                    if (e.getStatusCode().value() != 429) {
+                        throw e;
+                    }
+                    Duration retryAfter = retryAfter(e.getResponseHeaders());
+                    // Other callers still hold off, even once this one gives up.
+                    pause(retryAfter);
+                    if (attempt >= maxRetries) {
+                        throw e;
+                    }
+                    logger.warn("LLM provider rate limit hit, pausing for {} ms (retry {}/{})",
+                        retryAfter.toMillis(), attempt + 1, maxRetries);
+                }
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void awaitQuota(int estimatedTokens) throws InterruptedException {
+        long delay;
+        synchronized (this) {
+            long now = System.nanoTime();
+            delay = Math.max(pausedUntilNanos - now, 0);
+            delay = Math.max(delay, requestBucket.reserve(1, now));
+            delay = Math.max(delay, tokenBucket.reserve(estimatedTokens, now));
+        }
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    private synchronized void pause(Duration duration) {
+        long now = System.nanoTime();
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + duration.toNanos());
+        requestBucket.drain(now);
+        tokenBucket.drain(now);
+    }
+
+    private Duration retryAfter(HttpHeaders headers) {
+        if (headers == null) {
+            return defaultRetryAfter;
+        }
+        // OpenAI sends a millisecond variant next to the standard header.
+        String millis = headers.getFirst("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Duration.ofMillis(Math.round(Double.parseDouble(millis.trim())));
+            } catch (NumberFormatException ignored) {
+                // fall through to Retry-After
+            }
+        }
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return defaultRetryAfter;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration until = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (Exception ignored) {
+                return defaultRetryAfter;
+            }
+        }
+    }
+}
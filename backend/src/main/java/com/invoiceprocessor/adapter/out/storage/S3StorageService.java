@@ -6,59 +6,115 @@ import com.invoiceprocessor.domain.entity.EndpointType;
 import com.invoiceprocessor.domain.entity.IntegrationEndpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * S3/MinIO implementation of {@link StorageService}.
+ *
+ * Uploads are streamed: objects up to one part size go out as a single PUT,
+ * larger ones as a multipart upload that reuses one part-sized buffer, so heap
+ * use per upload is bounded by the part size rather than the object size.
+ * When the length is unknown the buffer starts small and only grows to the
+ * part size as the stream turns out to be that large.
+ *
+ * The client and its configuration are kept in one immutable holder that is
+ * swapped atomically. Calls read it without locking or touching the database;
+ * it is reloaded after {@code storage.s3.config-ttl-seconds} or when
+ * {@link #invalidateConfiguration()} is called. A client replaced by a new
+ * configuration is reference counted and only closed once the last call and
+ * the last download stream still using it are done.
+ */
 @Component
 public class S3StorageService implements StorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(S3StorageService.class);
+    // S3 rejects multipart parts below 5 MB, except for the last one.
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
 
     private final IntegrationEndpointRepository integrationEndpointRepository;
-    private final Object clientLock = new Object();
-    private S3Client cachedClient;
-    private S3Config cachedConfig;
+    private final AtomicReference<ClientContext> current = new AtomicReference<>();
+    private final Object refreshLock = new Object();
+    private final Duration configTtl;
+    private final int partSize;
 
     public S3StorageService(
-            IntegrationEndpointRepository integrationEndpointRepository) {
+            IntegrationEndpointRepository integrationEndpointRepository,
+            @Value("${storage.s3.config-ttl-seconds:300}") long configTtlSeconds,
+            @Value("${storage.s3.multipart.part-size-mb:8}") int partSizeMb) {
         this.integrationEndpointRepository = integrationEndpointRepository;
+        this.configTtl = Duration.ofSeconds(configTtlSeconds);
+        this.partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
     }
 
     @Override
     public String uploadFile(String key, InputStream inputStream, String contentType) {
-        ClientContext context = getClientContext();
-        try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(context.config().bucket())
-                    .key(key)
-                    .contentType(contentType)
-                    .build();
+        return uploadFile(key, inputStream, contentType, -1);
+    }
 
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] data = new byte[8192];
-            int nRead;
-            while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
+    @Override
+    public String uploadFile(String key, InputStream inputStream, String contentType, long contentLength) {
+        ClientContext context = acquireClientContext();
+        try {
+            if (contentLength >= 0 && contentLength <= partSize) {
+                // Known small size: stream straight through without buffering.
+                putObject(context, key, contentType, RequestBody.fromInputStream(inputStream, contentLength));
+                return key;
             }
-            byte[] bytes = buffer.toByteArray();
 
-            context.client().putObject(putObjectRequest, RequestBody.fromBytes(bytes));
+            // Most uploads of unknown length are small, so don't commit to a whole part up front.
+            byte[] buffer = new byte[contentLength > partSize ? partSize : Math.min(partSize, INITIAL_BUFFER_SIZE)];
+            int length = readFully(inputStream, buffer, 0);
+            while (length == buffer.length && buffer.length < partSize) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(2L * buffer.length, partSize));
+                length = readFully(inputStream, buffer, length);
+            }
+            if (length < partSize) {
+                putObject(context, key, contentType,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+            } else {
+                uploadMultipart(context, key, contentType, inputStream, buffer, length);
+            }
 
             return key; // Return the key as the content reference
         } catch (IOException e) {
@@ -66,6 +122,7 @@ public class S3StorageService implements StorageService {
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload file to S3: " + e.getMessage(), e);
         } finally {
+            context.clients().release();
             try {
                 inputStream.close();
             } catch (IOException e) {
@@ -74,24 +131,166 @@ public class S3StorageService implements StorageService {
         }
     }
 
+    private void putObject(ClientContext context, String key, String contentType, RequestBody body) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(context.config().bucket())
+                .key(key)
+                .contentType(contentType)
+                .build();
+        context.client().putObject(putObjectRequest, body);
+    }
+
+    private void uploadMultipart(ClientContext context, String key, String contentType,
+                                 InputStream inputStream, byte[] buffer, int firstPartLength) throws IOException {
+        String bucket = context.config().bucket();
+        String uploadId = context.client().createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int length = firstPartLength;
+            for (int partNumber = 1; length > 0; partNumber++) {
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length)
+                        .build();
+                String eTag = context.client().uploadPart(uploadPartRequest,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                length = readFully(inputStream, buffer, 0);
+            }
+
+            context.client().completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            logger.debug("Uploaded {} in {} parts", key, parts.size());
+        } catch (IOException | RuntimeException e) {
+            abortMultipartUpload(context, key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abortMultipartUpload(ClientContext context, String key, String uploadId) {
+        try {
+            context.client().abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(context.config().bucket())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            logger.warn("Failed to abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads until the buffer is full or the stream ends.
+     *
+     * @param offset Number of bytes already in the buffer
+     * @return Number of bytes in the buffer, {@code offset} at end of stream
+     */
+    private int readFully(InputStream inputStream, byte[] buffer, int offset) throws IOException {
+        int total = offset;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
     @Override
     public InputStream downloadFile(String key) {
-        ClientContext context = getClientContext();
+        ClientContext context = acquireClientContext();
         try {
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(context.config().bucket())
                     .key(key)
                     .build();
 
-            return context.client().getObjectAsBytes(getObjectRequest).asInputStream();
+            return new ReleasingInputStream(context.client().getObject(getObjectRequest), context.clients());
         } catch (Exception e) {
+            context.clients().release();
             throw new RuntimeException("Failed to download file from S3: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public InputStream downloadRange(String key, long start, long end) {
+        ClientContext context = acquireClientContext();
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(context.config().bucket())
+                    .key(key)
+                    .range("bytes=" + start + "-" + end)
+                    .build();
+
+            return new ReleasingInputStream(context.client().getObject(getObjectRequest), context.clients());
+        } catch (Exception e) {
+            context.clients().release();
+            throw new RuntimeException("Failed to download file range from S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<ObjectMetadata> getMetadata(String key) {
+        ClientContext context = acquireClientContext();
+        try {
+            HeadObjectResponse response = context.client().headObject(HeadObjectRequest.builder()
+                    .bucket(context.config().bucket())
+                    .key(key)
+                    .build());
+            return Optional.of(new ObjectMetadata(response.contentLength(), response.eTag(), response.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD responses carry no error body, so a missing key surfaces as a plain 404.
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new RuntimeException("Failed to read file metadata from S3: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read file metadata from S3: " + e.getMessage(), e);
+        } finally {
+            context.clients().release();
+        }
+    }
+
+    @Override
+    public Optional<URI> presignDownload(String key, Duration validity, String contentType, String contentDisposition) {
+        ClientContext context = acquireClientContext();
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(context.config().bucket())
+                    .key(key)
+                    .responseContentType(contentType)
+                    .responseContentDisposition(contentDisposition)
+                    .build();
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                    .signatureDuration(validity)
+                    .getObjectRequest(getObjectRequest)
+                    .build();
+            return Optional.of(context.presigner().presignGetObject(presignRequest).url().toURI());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to presign S3 download: " + e.getMessage(), e);
+        } finally {
+            context.clients().release();
+        }
+    }
+
     @Override
     public void deleteFile(String key) {
-        ClientContext context = getClientContext();
+        ClientContext context = acquireClientContext();
         try {
             DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                     .bucket(context.config().bucket())
@@ -101,31 +300,104 @@ public class S3StorageService implements StorageService {
             context.client().deleteObject(deleteObjectRequest);
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete file from S3: " + e.getMessage(), e);
+        } finally {
+            context.clients().release();
         }
     }
 
-    private ClientContext getClientContext() {
-        S3Config desiredConfig = resolveConfig();
-        synchronized (clientLock) {
-            if (cachedClient == null || cachedConfig == null || !cachedConfig.equals(desiredConfig)) {
-                rebuildClient(desiredConfig);
+    @Override
+    public String moveFile(String sourceKey, String targetKey) {
+        ClientContext context = acquireClientContext();
+        try {
+            // Server-side copy; the content never passes through this service.
+            context.client().copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(context.config().bucket())
+                    .sourceKey(sourceKey)
+                    .destinationBucket(context.config().bucket())
+                    .destinationKey(targetKey)
+                    .build());
+            context.client().deleteObject(DeleteObjectRequest.builder()
+                    .bucket(context.config().bucket())
+                    .key(sourceKey)
+                    .build());
+            return targetKey;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to move file in S3: " + e.getMessage(), e);
+        } finally {
+            context.clients().release();
+        }
+    }
+
+    @Override
+    public void invalidateConfiguration() {
+        current.updateAndGet(context -> context == null ? null : context.expiringAt(System.nanoTime()));
+        logger.info("Storage configuration invalidated, reloading on next use");
+    }
+
+    /**
+     * Returns the current client context with a reference taken on its
+     * client, which the caller must release when done with it.
+     */
+    private ClientContext acquireClientContext() {
+        while (true) {
+            ClientContext context = getClientContext();
+            if (context.clients().retain()) {
+                return context;
             }
-            return new ClientContext(cachedClient, cachedConfig);
+            // Retired and closed just now; the replacement is already current.
+        }
+    }
+
+    private ClientContext getClientContext() {
+        ClientContext context = current.get();
+        if (context != null && System.nanoTime() - context.expiresAtNanos() < 0) {
+            return context;
         }
+        return refreshClientContext();
     }
 
-    private void rebuildClient(S3Config config) {
-        if (cachedClient != null) {
+    private ClientContext refreshClientContext() {
+        synchronized (refreshLock) {
+            ClientContext context = current.get();
+            long now = System.nanoTime();
+            if (context != null && now - context.expiresAtNanos() < 0) {
+                return context; // refreshed by another thread meanwhile
+            }
+
+            S3Config desiredConfig;
             try {
-                cachedClient.close();
-            } catch (Exception e) {
-                logger.warn("Failed to close existing S3 client: {}", e.getMessage());
+                desiredConfig = resolveConfig();
+            } catch (RuntimeException e) {
+                if (context == null) {
+                    throw e;
+                }
+                // Keep serving the last known configuration rather than failing every call.
+                logger.warn("Failed to reload storage configuration, keeping current one: {}", e.getMessage());
+                desiredConfig = context.config();
+            }
+
+            ClientContext refreshed;
+            if (context != null && context.config().equals(desiredConfig)) {
+                refreshed = context.expiringAt(now + configTtl.toNanos());
+            } else {
+                Clients clients = new Clients(buildClient(desiredConfig), buildPresigner(desiredConfig));
+                refreshed = new ClientContext(clients, desiredConfig, now + configTtl.toNanos());
+                try {
+                    ensureBucketExists(clients.client(), desiredConfig.bucket());
+                } catch (RuntimeException e) {
+                    clients.release();
+                    throw e;
+                }
+                logger.info("Initialized S3 client for endpoint {}", desiredConfig.endpoint());
             }
+            current.set(refreshed);
+
+            if (context != null && context.clients() != refreshed.clients()) {
+                // Drops the holder's reference; closed once calls still using it are done.
+                context.clients().release();
+            }
+            return refreshed;
         }
-        cachedClient = buildClient(config);
-        cachedConfig = config;
-        ensureBucketExists(cachedClient, config.bucket());
-        logger.info("Initialized S3 client for endpoint {}", config.endpoint());
     }
 
     private S3Config resolveConfig() {
@@ -143,8 +415,13 @@ public class S3StorageService implements StorageService {
         String bucket = requiredSetting(settings, "bucket", "bucketName");
         String region = software.amazon.awssdk.regions.Region.US_EAST_1.toString();
         boolean forcePathStyle = parseBoolean(settings.getOrDefault("forcePathStyle", "true"));
+        // Address browsers use for presigned URLs when it differs from the internal one.
+        String publicEndpoint = settings.get("publicEndpoint");
+        if (publicEndpoint == null || publicEndpoint.isBlank()) {
+            publicEndpoint = endpointUrl;
+        }
 
-        return new S3Config(endpointUrl, accessKey, secretKey, bucket, region, forcePathStyle);
+        return new S3Config(endpointUrl, publicEndpoint, accessKey, secretKey, bucket, region, forcePathStyle);
     }
 
     private S3Client buildClient(S3Config config) {
@@ -157,6 +434,18 @@ public class S3StorageService implements StorageService {
                 .build();
     }
 
+    private S3Presigner buildPresigner(S3Config config) {
+        AwsBasicCredentials awsCreds = AwsBasicCredentials.create(config.accessKey(), config.secretKey());
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(config.publicEndpoint()))
+                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+                .region(Region.of(config.region()))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(config.forcePathStyle())
+                        .build())
+                .build();
+    }
+
     private void ensureBucketExists(S3Client client, String bucketName) {
         try {
             HeadBucketRequest headBucketRequest = HeadBucketRequest.builder()
@@ -189,6 +478,7 @@ public class S3StorageService implements StorageService {
 
     private record S3Config(
             String endpoint,
+            String publicEndpoint,
             String accessKey,
             String secretKey,
             String bucket,
@@ -197,8 +487,97 @@ public class S3StorageService implements StorageService {
     ) {}
 
     private record ClientContext(
-            S3Client client,
-            S3Config config
-    ) {}
+            Clients clients,
+            S3Config config,
+            long expiresAtNanos
+    ) {
+        S3Client client() {
+            return clients.client();
+        }
+
+        S3Presigner presigner() {
+            return clients.presigner();
+        }
+
+        ClientContext expiringAt(long nanos) {
+            return new ClientContext(clients, config, nanos);
+        }
+    }
+
+    /**
+     * A client and presigner built from one configuration. Starts with one
+     * reference held by {@link #current}; closed when the count drops to zero.
+     */
+    private static final class Clients {
+
+        private final S3Client client;
+        private final S3Presigner presigner;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Clients(S3Client client, S3Presigner presigner) {
+            this.client = client;
+            this.presigner = presigner;
+        }
+
+        S3Client client() {
+            return client;
+        }
+
+        S3Presigner presigner() {
+            return presigner;
+        }
+
+        /**
+         * @return Whether a reference was taken; false once the clients are closed
+         */
+        boolean retain() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    client.close();
+                    presigner.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close retired S3 client: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the clients open until the download stream is closed.
+     */
+    private static final class ReleasingInputStream extends FilterInputStream {
+
+        private final Clients clients;
+        private boolean released;
+
+        private ReleasingInputStream(InputStream in, Clients clients) {
+            super(in);
+            this.clients = clients;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    clients.release();
+                }
+            }
+        }
+    }
 }
 
@@ -1,13 +1,29 @@
 package com.invoiceprocessor.application.port.out;
 
 import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface DocumentRepository {
     Document save(Document document);
+    List<Document> saveAll(Collection<Document> documents);
     Optional<Document> findById(UUID id);
     List<Document> findByStackId(UUID stackId);
+    List<Document> findByIds(Collection<UUID> ids);
+
+    /**
+     * Sets the extraction status of existing documents with one statement,
+     * without loading them.
+     */
+    void updateExtractionStatus(Collection<UUID> ids, ExtractionStatus status);
+
+    /**
+     * Writes the classification and extraction status of an existing
+     * document, without loading it first.
+     */
+    void updateExtractionResult(Document document);
 }
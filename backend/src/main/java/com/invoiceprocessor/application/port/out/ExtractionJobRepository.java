@@ -0,0 +1,39 @@
+package com.invoiceprocessor.application.port.out;
+
+import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.ExtractionJob;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Port for the durable queue of pending document extractions.
+ */
+public interface ExtractionJobRepository {
+
+    /**
+     * Queues extraction for the given documents as part of the caller's
+     * transaction. Documents that already have a pending job are skipped.
+     */
+    void enqueue(List<Document> documents);
+
+    /**
+     * Atomically claims up to {@code limit} pending jobs for this worker.
+     * Jobs locked by another worker are skipped rather than waited for, so
+     * several instances can claim concurrently without double-processing.
+     */
+    List<ExtractionJob> claimBatch(String workerId, int limit);
+
+    ExtractionJob save(ExtractionJob job);
+
+    void deleteById(UUID id);
+
+    /**
+     * Returns running jobs whose lock is older than {@code lockedBefore} to the
+     * pending state, e.g. after the owning instance crashed.
+     *
+     * @return Number of jobs released
+     */
+    int releaseStale(Instant lockedBefore);
+}
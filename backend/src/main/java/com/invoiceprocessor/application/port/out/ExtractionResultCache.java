@@ -0,0 +1,43 @@
+package com.invoiceprocessor.application.port.out;
+
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+
+import java.util.Optional;
+
+/**
+ * Port for caching LLM extraction results by document content.
+ *
+ * Entries are keyed by the SHA-256 of the document bytes together with the
+ * model and prompt version that produced them, so a model or prompt change
+ * never serves stale results.
+ */
+public interface ExtractionResultCache {
+
+    Optional<InvoiceProcessingService.LlmExtractionResult> get(CacheKey key);
+
+    void put(CacheKey key, InvoiceProcessingService.LlmExtractionResult result);
+
+    /**
+     * Removes all entries produced by the given model.
+     *
+     * @param model The model name, e.g. "gpt-4o-mini"
+     * @return Number of persisted entries removed
+     */
+    int invalidateModel(String model);
+
+    CacheStats stats();
+
+    record CacheKey(
+        String contentHash,
+        String model,
+        String promptVersion
+    ) {}
+
+    record CacheStats(
+        long memoryHits,
+        long databaseHits,
+        long misses,
+        long memoryEntries,
+        long memoryEvictions
+    ) {}
+}
@@ -2,11 +2,22 @@ package com.invoiceprocessor.application.port.out;
 
 import com.invoiceprocessor.domain.entity.InvoiceExtraction;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface InvoiceExtractionRepository {
     InvoiceExtraction save(InvoiceExtraction extraction);
+    List<InvoiceExtraction> saveAll(Collection<InvoiceExtraction> extractions);
+
+    /**
+     * Stores extractions that don't exist yet, e.g. fresh results for
+     * documents whose previous extraction was just deleted.
+     */
+    List<InvoiceExtraction> insertAll(Collection<InvoiceExtraction> extractions);
+
     Optional<InvoiceExtraction> findByDocumentId(UUID documentId);
+    List<InvoiceExtraction> findByDocumentIds(Collection<UUID> documentIds);
     void deleteByDocumentId(UUID documentId);
 }
@@ -3,6 +3,30 @@ package com.invoiceprocessor.application.port.out;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 public interface LlmInvoiceExtractor {
+
+    /**
+     * @throws LlmUnavailableException if the provider is unreachable; the
+     *         document has not been classified and should be retried later
+     */
     InvoiceProcessingService.LlmExtractionResult extract(Document document);
+
+    /**
+     * Extracts several documents, ideally in fewer provider requests than
+     * documents. Returns a result for every document, keyed by document id.
+     *
+     * @throws LlmUnavailableException if the provider is unreachable
+     */
+    default Map<UUID, InvoiceProcessingService.LlmExtractionResult> extractBatch(List<Document> documents) {
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results = new LinkedHashMap<>();
+        for (Document document : documents) {
+            results.put(document.getId(), extract(document));
+        }
+        return results;
+    }
 }
@@ -0,0 +1,23 @@
+package com.invoiceprocessor.application.port.out;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Port for throttling calls to the LLM provider.
+ *
+ * All code talking to the provider shares one limiter so that extraction and
+ * chat together stay within the account's request and token quotas.
+ */
+public interface LlmRateLimiter {
+
+    /**
+     * Runs a provider call once quota is available.
+     *
+     * @param requestBody The payload sent to the provider, used to estimate token usage
+     * @param call The call to run; retried when the provider answers 429 Too Many Requests
+     * @return The result of the call
+     * @throws Exception Whatever the call threw, unchanged. A 429 is only thrown once the
+     *         limiter's own retries are used up, so callers must not retry it again
+     */
+    <T> T execute(String requestBody, Callable<T> call) throws Exception;
+}
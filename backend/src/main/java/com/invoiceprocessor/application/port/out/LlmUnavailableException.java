@@ -0,0 +1,19 @@
+package com.invoiceprocessor.application.port.out;
+
+/**
+ * Thrown by LLM adapters when the provider cannot be reached or keeps
+ * failing, as opposed to answering with a classification.
+ *
+ * Callers should keep the document queued and try again later rather than
+ * treating the document as not being an invoice.
+ */
+public class LlmUnavailableException extends RuntimeException {
+
+    public LlmUnavailableException(String message) {
+        super(message);
+    }
+
+    public LlmUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,44 @@
+package com.invoiceprocessor.application.port.out;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains the monthly partitions of the stacks and documents tables.
+ */
+public interface StackArchiveRepository {
+
+    /**
+     * Creates the stacks and documents partitions of every month from the
+     * current one through the given month, if they do not exist yet.
+     */
+    void createPartitionsThrough(YearMonth month);
+
+    /**
+     * Returns the months before the given one that still have partitions
+     * attached, oldest first.
+     */
+    List<YearMonth> findAttachedMonthsBefore(YearMonth month);
+
+    /**
+     * Returns up to {@code limit} documents of the month ordered by id,
+     * starting after the given id (or at the first one if null).
+     */
+    List<StoredDocument> findDocuments(YearMonth month, UUID afterId, int limit);
+
+    void updateContentLocation(YearMonth month, UUID documentId, String contentLocation);
+
+    /**
+     * Takes the month out of the live tables. Its invoice extractions are
+     * copied next to the detached partitions and removed together with any
+     * extraction jobs; with {@code drop} the partitions are dropped instead of
+     * kept as standalone tables.
+     */
+    void detachMonth(YearMonth month, boolean drop);
+
+    record StoredDocument(
+        UUID id,
+        String contentLocation
+    ) {}
+}
@@ -2,13 +2,30 @@ package com.invoiceprocessor.application.port.out;
 
 import com.invoiceprocessor.domain.entity.Stack;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface StackRepository {
     Stack save(Stack stack);
+    List<Stack> saveAll(Collection<Stack> stacks);
     Optional<Stack> findById(UUID id);
+    Optional<Stack> findByIdForUpdate(UUID id);
     List<Stack> findAll(int page, int size);
+
+    /**
+     * Returns up to {@code size} stacks ordered after the given position,
+     * newest first. A null position starts at the newest stack.
+     */
+    List<Stack> findAfter(Instant receivedAt, UUID id, int size);
+
     long count();
+
+    /**
+     * Recomputes the document counters of stacks received since the given
+     * instant from their documents and returns how many had drifted.
+     */
+    int repairCounters(Instant receivedSince);
 }
@@ -1,6 +1,11 @@
 package com.invoiceprocessor.application.port.out;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 
 /**
  * Port for storing and retrieving document content from object storage (S3).
@@ -16,14 +21,62 @@ public interface StorageService {
      * @return The storage location/path that can be used as content reference
      */
     String uploadFile(String key, InputStream inputStream, String contentType);
+
+    /**
+     * Uploads a file whose size is known up front, which lets implementations
+     * stream it without buffering.
+     *
+     * @param key The unique key/path for the file in storage
+     * @param inputStream The file content as input stream
+     * @param contentType The MIME type of the file
+     * @param contentLength The number of bytes in the stream, or -1 if unknown
+     * @return The storage location/path that can be used as content reference
+     */
+    default String uploadFile(String key, InputStream inputStream, String contentType, long contentLength) {
+        return uploadFile(key, inputStream, contentType);
+    }
     
     /**
-     * Retrieves a file from storage.
+     * Retrieves a file from storage. The content is streamed; callers must
+     * close the returned stream.
      * 
      * @param key The storage key/path
      * @return The file content as input stream
      */
     InputStream downloadFile(String key);
+
+    /**
+     * Retrieves part of a file from storage.
+     *
+     * @param key The storage key/path
+     * @param start First byte to return
+     * @param end Last byte to return, inclusive
+     * @return The requested bytes as input stream; callers must close it
+     */
+    InputStream downloadRange(String key, long start, long end);
+
+    /**
+     * Looks up size and version information of a stored file without
+     * downloading it.
+     *
+     * @param key The storage key/path
+     * @return The metadata, or empty if no such file exists
+     */
+    Optional<ObjectMetadata> getMetadata(String key);
+
+    /**
+     * Creates a time-limited URL from which clients can download the file
+     * directly, bypassing this service.
+     *
+     * @param key The storage key/path
+     * @param validity How long the URL stays valid
+     * @param contentType Content type the storage should respond with
+     * @param contentDisposition Content disposition the storage should respond with
+     * @return The URL, or empty if the storage does not support it
+     */
+    default Optional<URI> presignDownload(String key, Duration validity, String contentType, String contentDisposition) {
+        return Optional.empty();
+    }
     
     /**
      * Deletes a file from storage.
@@ -31,5 +84,36 @@ public interface StorageService {
      * @param key The storage key/path
      */
     void deleteFile(String key);
+
+    /**
+     * Moves a file to another key, e.g. into a cold-storage prefix.
+     *
+     * @param sourceKey The current storage key/path
+     * @param targetKey The new storage key/path
+     * @return The storage location/path of the moved file
+     */
+    default String moveFile(String sourceKey, String targetKey) {
+        String location;
+        try (InputStream content = downloadFile(sourceKey)) {
+            location = uploadFile(targetKey, content, "application/octet-stream");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to move file: " + e.getMessage(), e);
+        }
+        deleteFile(sourceKey);
+        return location;
+    }
+
+    /**
+     * Drops cached connection settings so the next call reloads them, e.g.
+     * after the storage endpoint was changed through the admin API.
+     */
+    default void invalidateConfiguration() {
+    }
+
+    record ObjectMetadata(
+        long contentLength,
+        String eTag,
+        Instant lastModified
+    ) {}
 }
 
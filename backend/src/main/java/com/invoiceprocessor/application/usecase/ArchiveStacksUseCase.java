@@ -0,0 +1,99 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.StackArchiveRepository;
+import com.invoiceprocessor.application.port.out.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves whole months of stacks out of the live tables.
+ *
+ * For every month before the cutoff, the stored content of its documents is
+ * moved under the cold prefix first, then the month's partitions are detached
+ * (or dropped). Each step is idempotent, so a run that fails halfway simply
+ * continues where it stopped on the next run.
+ */
+@Service
+public class ArchiveStacksUseCase {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveStacksUseCase.class);
+    private static final int PAGE_SIZE = 500;
+
+    private final StackArchiveRepository archiveRepository;
+    private final StorageService storageService;
+    private final String coldPrefix;
+    private final boolean dropPartitions;
+
+    public ArchiveStacksUseCase(
+            StackArchiveRepository archiveRepository,
+            StorageService storageService,
+            @Value("${archival.cold-prefix:archive/}") String coldPrefix,
+            @Value("${archival.drop-partitions:false}") boolean dropPartitions) {
+        this.archiveRepository = archiveRepository;
+        this.storageService = storageService;
+        this.coldPrefix = coldPrefix;
+        this.dropPartitions = dropPartitions;
+    }
+
+    public void preparePartitions(YearMonth through) {
+        archiveRepository.createPartitionsThrough(through);
+    }
+
+    /**
+     * Archives every month before {@code cutoff} that is still attached and
+     * returns how many months were archived.
+     */
+    public int execute(YearMonth cutoff) {
+        List<YearMonth> months = archiveRepository.findAttachedMonthsBefore(cutoff);
+        int archived = 0;
+        for (YearMonth month : months) {
+            int moved = moveContent(month);
+            archiveRepository.detachMonth(month, dropPartitions);
+            archived++;
+            logger.info("Archived stacks of {}: moved {} documents to {}, partitions {}",
+                month, moved, coldPrefix, dropPartitions ? "dropped" : "detached");
+        }
+        return archived;
+    }
+
+    private int moveContent(YearMonth month) {
+        int moved = 0;
+        UUID after = null;
+        List<StackArchiveRepository.StoredDocument> page;
+        do {
+            page = archiveRepository.findDocuments(month, after, PAGE_SIZE);
+            for (StackArchiveRepository.StoredDocument document : page) {
+                if (moveToColdStorage(month, document)) {
+                    moved++;
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == PAGE_SIZE);
+        return moved;
+    }
+
+    private boolean moveToColdStorage(YearMonth month, StackArchiveRepository.StoredDocument document) {
+        String location = document.contentLocation();
+        if (location == null || location.isBlank() || location.startsWith(coldPrefix)) {
+            return false;
+        }
+        String target = coldPrefix + location;
+        if (storageService.getMetadata(location).isPresent()) {
+            target = storageService.moveFile(location, target);
+        } else if (storageService.getMetadata(target).isEmpty()) {
+            // Simulated documents only carry a reference and have nothing in storage.
+            return false;
+        }
+        // Also reached when a previous run moved the object but stopped before this update.
+        archiveRepository.updateContentLocation(month, document.id(), target);
+        return true;
+    }
+}
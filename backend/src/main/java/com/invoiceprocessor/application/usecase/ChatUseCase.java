@@ -1,5 +1,6 @@
 package com.invoiceprocessor.application.usecase;
 
+import com.invoiceprocessor.application.port.out.LlmRateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,12 +20,14 @@ public class ChatUseCase {
     private static final Logger logger = LoggerFactory.getLogger(ChatUseCase.class);
 
     private final RestTemplate restTemplate;
+    private final LlmRateLimiter rateLimiter;
     private final String apiKey;
     private final String model;
     private final String apiUrl;
 
     public ChatUseCase(
             RestTemplateBuilder restTemplateBuilder,
+            LlmRateLimiter rateLimiter,
             @Value("${openai.api.key:}") String apiKey,
             @Value("${openai.model:gpt-4o-mini}") String model,
             @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}") String apiUrl) {
@@ -32,6 +35,7 @@ public class ChatUseCase {
             .setConnectTimeout(Duration.ofSeconds(10))
             .setReadTimeout(Duration.ofSeconds(60))
             .build();
+        this.rateLimiter = rateLimiter;
         this.apiKey = apiKey;
         this.model = model;
         this.apiUrl = apiUrl;
@@ -68,7 +72,7 @@ public class ChatUseCase {
             logger.debug("Sending chat request to LLM at {} with payload: {}", apiUrl, body);
 
             HttpEntity<String> entity = new HttpEntity<>(body, headers);
-            String response = restTemplate.postForObject(apiUrl, entity, String.class);
+            String response = rateLimiter.execute(body, () -> restTemplate.postForObject(apiUrl, entity, String.class));
             if (response == null || response.isBlank()) {
                 return new ChatResponse("Empty response from model.");
             }
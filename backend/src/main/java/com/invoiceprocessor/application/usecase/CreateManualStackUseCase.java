@@ -1,21 +1,22 @@
 package com.invoiceprocessor.application.usecase;
 
 import com.invoiceprocessor.application.port.out.DocumentRepository;
-import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
-import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
 import com.invoiceprocessor.application.port.out.StackRepository;
 import com.invoiceprocessor.application.port.out.StorageService;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.DocumentType;
-import com.invoiceprocessor.domain.entity.ExtractionStatus;
 import com.invoiceprocessor.domain.entity.Stack;
-import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,30 +29,75 @@ public class CreateManualStackUseCase {
 
     private final StackRepository stackRepository;
     private final DocumentRepository documentRepository;
-    private final InvoiceExtractionRepository extractionRepository;
-    private final LlmInvoiceExtractor llmExtractor;
-    private final InvoiceProcessingService processingService;
+    private final ExtractionJobRepository extractionJobRepository;
     private final StorageService storageService;
+    private final TransactionTemplate transactionTemplate;
 
     public CreateManualStackUseCase(
             StackRepository stackRepository,
             DocumentRepository documentRepository,
-            InvoiceExtractionRepository extractionRepository,
-            LlmInvoiceExtractor llmExtractor,
-            InvoiceProcessingService processingService,
-            StorageService storageService) {
+            ExtractionJobRepository extractionJobRepository,
+            StorageService storageService,
+            PlatformTransactionManager transactionManager) {
         this.stackRepository = stackRepository;
         this.documentRepository = documentRepository;
-        this.extractionRepository = extractionRepository;
-        this.llmExtractor = llmExtractor;
-        this.processingService = processingService;
+        this.extractionJobRepository = extractionJobRepository;
         this.storageService = storageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
     public UUID execute(CreateManualStackRequest request) {
+        Stack stack = buildStack(request);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(List.of(stack)));
+        } catch (RuntimeException e) {
+            deleteUploadedContent(List.of(stack));
+            throw e;
+        }
+        return stack.getId();
+    }
+
+    /**
+     * Imports several emails with one database transaction for all of them.
+     *
+     * Content is uploaded per email, and an email whose preparation fails is
+     * reported without affecting the others. If the final transaction fails,
+     * every email that got that far is reported as failed and its uploaded
+     * content is deleted again.
+     *
+     * @return One result per request, in request order
+     */
+    public List<BatchItemResult> executeBatch(List<CreateManualStackRequest> requests) {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Stack> stacks = new ArrayList<>();
+        for (CreateManualStackRequest request : requests) {
+            try {
+                Stack stack = buildStack(request);
+                stacks.add(stack);
+                results.add(BatchItemResult.success(stack.getId()));
+            } catch (Exception e) {
+                logger.error("Failed to prepare stack for email '{}': {}", request.subject(), e.getMessage(), e);
+                results.add(BatchItemResult.failure(e.getMessage()));
+            }
+        }
+
+        if (stacks.isEmpty()) {
+            return results;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(stacks));
+        } catch (Exception e) {
+            logger.error("Failed to store batch of {} stacks: {}", stacks.size(), e.getMessage(), e);
+            deleteUploadedContent(stacks);
+            return results.stream()
+                .map(result -> result.stackId() != null ? BatchItemResult.failure(e.getMessage()) : result)
+                .toList();
+        }
+        return results;
+    }
+
+    private Stack buildStack(CreateManualStackRequest request) {
         Stack stack = new Stack(request.from(), request.to(), request.subject());
-        stack = stackRepository.save(stack);
 
         List<Document> documents = new ArrayList<>();
 
@@ -64,7 +110,7 @@ public class CreateManualStackUseCase {
                     "text/plain"
                 );
                 Document emailBody = new Document(
-                    stack.getId(),
+                    stack,
                     DocumentType.EMAIL_BODY,
                     "email-body.txt",
                     contentLocation
@@ -84,14 +130,13 @@ public class CreateManualStackUseCase {
                     String contentType = attachment.contentType() != null
                         ? attachment.contentType()
                         : "application/octet-stream";
-                    String contentLocation = storageService.uploadFile(
-                        key,
-                        new ByteArrayInputStream(attachment.content()),
-                        contentType
-                    );
+                    String contentLocation;
+                    try (InputStream content = attachment.content().getInputStream()) {
+                        contentLocation = storageService.uploadFile(key, content, contentType, attachment.size());
+                    }
 
                     Document document = new Document(
-                        stack.getId(),
+                        stack,
                         docType,
                         filename,
                         contentLocation
@@ -103,31 +148,37 @@ public class CreateManualStackUseCase {
             }
         }
 
-        for (Document document : documents) {
-            documentRepository.save(document);
-            processDocument(document);
-        }
-
         stack.setDocuments(documents);
         stack.updateStatusFromDocuments();
-        stackRepository.save(stack);
-
-        return stack.getId();
+        return stack;
     }
 
-    private void processDocument(Document document) {
-        document.setExtractionStatus(ExtractionStatus.EXTRACTING);
-        documentRepository.save(document);
+    private void persist(List<Stack> stacks) {
+        List<Document> documents = stacks.stream()
+            .flatMap(stack -> stack.getDocuments().stream())
+            .toList();
+        // Stacks first so the documents' foreign key holds when the batch is flushed.
+        stackRepository.saveAll(stacks);
+        documentRepository.saveAll(documents);
 
-        InvoiceProcessingService.LlmExtractionResult llmResult = llmExtractor.extract(document);
-        InvoiceProcessingService.ProcessingResult result =
-            processingService.processDocumentWithLlmResult(document, llmResult);
-
-        documentRepository.save(document);
+        // Queued in the same transaction; extraction workers pick the jobs up once it commits.
+        extractionJobRepository.enqueue(documents);
+    }
 
-        extractionRepository.deleteByDocumentId(document.getId());
-        if (result.success() && result.extraction() != null) {
-            extractionRepository.save(result.extraction());
+    /**
+     * Removes the content of stacks that were never stored, so a failed
+     * transaction doesn't leave unreferenced objects behind.
+     */
+    private void deleteUploadedContent(List<Stack> stacks) {
+        for (Stack stack : stacks) {
+            for (Document document : stack.getDocuments()) {
+                try {
+                    storageService.deleteFile(document.getContentLocation());
+                } catch (Exception e) {
+                    logger.warn("Failed to delete content {} of unstored stack {}: {}",
+                        document.getContentLocation(), stack.getId(), e.getMessage());
+                }
+            }
         }
     }
 
@@ -165,9 +216,35 @@ public class CreateManualStackUseCase {
         List<AttachmentContent> attachments
     ) {}
 
+    /**
+     * @param stackId The created stack, or null if the email failed
+     * @param error Why the email failed, or null on success
+     */
+    public record BatchItemResult(
+        UUID stackId,
+        String error
+    ) {
+        static BatchItemResult success(UUID stackId) {
+            return new BatchItemResult(stackId, null);
+        }
+
+        static BatchItemResult failure(String error) {
+            return new BatchItemResult(null, error != null ? error : "Unknown error");
+        }
+    }
+
+    /**
+     * @param content Source of the attachment bytes, opened once during upload
+     * @param size Number of bytes, or -1 if unknown
+     */
     public record AttachmentContent(
         String filename,
         String contentType,
-        byte[] content
-    ) {}
+        InputStreamSource content,
+        long size
+    ) {
+        public AttachmentContent(String filename, String contentType, byte[] content) {
+            this(filename, contentType, new ByteArrayResource(content), content.length);
+        }
+    }
 }
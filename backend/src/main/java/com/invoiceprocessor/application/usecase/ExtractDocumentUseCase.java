@@ -0,0 +1,216 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.DocumentRepository;
+import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
+import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.LlmUnavailableException;
+import com.invoiceprocessor.application.port.out.StackRepository;
+import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.DocumentType;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
+import com.invoiceprocessor.domain.entity.InvoiceExtraction;
+import com.invoiceprocessor.domain.entity.Stack;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Runs LLM extraction for a single document.
+ *
+ * The LLM round-trip happens outside of any transaction; only the status
+ * transitions before and after it hold a database connection. The stack
+ * status is not touched here: callers extracting several documents of a
+ * stack call {@link #refreshStackStatus(UUID)} once when all of them are done.
+ *
+ * Short text documents can be extracted together with
+ * {@link #executeBatch(List)}, which lets the LLM adapter combine them into
+ * fewer provider requests.
+ */
+@Service
+public class ExtractDocumentUseCase {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractDocumentUseCase.class);
+
+    private final DocumentRepository documentRepository;
+    private final InvoiceExtractionRepository extractionRepository;
+    private final StackRepository stackRepository;
+    private final LlmInvoiceExtractor llmExtractor;
+    private final InvoiceProcessingService processingService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ExtractDocumentUseCase(
+            DocumentRepository documentRepository,
+            InvoiceExtractionRepository extractionRepository,
+            StackRepository stackRepository,
+            LlmInvoiceExtractor llmExtractor,
+            InvoiceProcessingService processingService,
+            PlatformTransactionManager transactionManager) {
+        this.documentRepository = documentRepository;
+        this.extractionRepository = extractionRepository;
+        this.stackRepository = stackRepository;
+        this.llmExtractor = llmExtractor;
+        this.processingService = processingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void execute(UUID documentId) {
+        Document document = transactionTemplate.execute(status -> startExtraction(documentId));
+        if (document == null) {
+            return;
+        }
+
+        InvoiceProcessingService.LlmExtractionResult llmResult;
+        try {
+            llmResult = llmExtractor.extract(document);
+        } catch (LlmUnavailableException e) {
+            // Nothing was classified; put the document back so it shows as queued.
+            transactionTemplate.executeWithoutResult(status -> resetToNew(List.of(documentId)));
+            throw e;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> completeExtraction(document, llmResult));
+    }
+
+    public void executeBatch(List<UUID> documentIds) {
+        List<Document> documents = transactionTemplate.execute(status -> startExtraction(documentIds));
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results;
+        try {
+            results = new HashMap<>(llmExtractor.extractBatch(documents));
+            // Documents the batch left out are extracted one by one.
+            for (Document document : documents) {
+                if (!results.containsKey(document.getId())) {
+                    results.put(document.getId(), llmExtractor.extract(document));
+                }
+            }
+        } catch (LlmUnavailableException e) {
+            // Nothing is stored for the batch, so all of it shows as queued again.
+            transactionTemplate.executeWithoutResult(status -> resetToNew(documents.stream().map(Document::getId).toList()));
+            throw e;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> completeExtraction(documents, results));
+    }
+
+    /**
+     * Returns the ids of documents small enough to share an LLM request:
+     * email bodies and plain-text attachments.
+     */
+    public Set<UUID> selectBatchCandidates(Collection<UUID> documentIds) {
+        List<Document> documents = transactionTemplate.execute(status -> documentRepository.findByIds(documentIds));
+        if (documents == null) {
+            return Set.of();
+        }
+        return documents.stream()
+            .filter(ExtractDocumentUseCase::isBatchCandidate)
+            .map(Document::getId)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gives up on a document whose extraction job has exhausted its attempts,
+     * so it surfaces as ERROR instead of staying in EXTRACTING.
+     */
+    public void markFailed(UUID documentId) {
+        transactionTemplate.executeWithoutResult(status ->
+            documentRepository.updateExtractionStatus(List.of(documentId), ExtractionStatus.ERROR));
+    }
+
+    public void refreshStackStatus(UUID stackId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Lock the stack row so concurrent refreshes for the same stack
+            // each see the other's committed document statuses.
+            Stack stack = stackRepository.findByIdForUpdate(stackId)
+                .orElseThrow(() -> new RuntimeException("Stack not found: " + stackId));
+
+            stack.setDocuments(documentRepository.findByStackId(stack.getId()));
+            stack.updateStatusFromDocuments();
+            stackRepository.save(stack);
+        });
+    }
+
+    private static boolean isBatchCandidate(Document document) {
+        if (document.getType() == DocumentType.EMAIL_BODY) {
+            return true;
+        }
+        String filename = document.getFilename();
+        return document.getType() == DocumentType.OTHER_ATTACHMENT
+            && filename != null
+            && filename.toLowerCase().endsWith(".txt");
+    }
+
+    private Document startExtraction(UUID documentId) {
+        Optional<Document> optionalDocument = documentRepository.findById(documentId);
+        if (optionalDocument.isEmpty()) {
+            logger.warn("Document {} no longer exists, skipping extraction", documentId);
+            return null;
+        }
+
+        Document document = optionalDocument.get();
+        document.setExtractionStatus(ExtractionStatus.EXTRACTING);
+        documentRepository.updateExtractionStatus(List.of(documentId), ExtractionStatus.EXTRACTING);
+        return document;
+    }
+
+    private List<Document> startExtraction(List<UUID> documentIds) {
+        List<Document> documents = documentRepository.findByIds(documentIds);
+        if (documents.size() < documentIds.size()) {
+            logger.warn("{} of {} documents no longer exist, skipping their extraction",
+                documentIds.size() - documents.size(), documentIds.size());
+        }
+        documents.forEach(document -> document.setExtractionStatus(ExtractionStatus.EXTRACTING));
+        documentRepository.updateExtractionStatus(
+            documents.stream().map(Document::getId).toList(), ExtractionStatus.EXTRACTING);
+        return documents;
+    }
+
+    private void resetToNew(List<UUID> documentIds) {
+        documentRepository.updateExtractionStatus(documentIds, ExtractionStatus.NEW);
+    }
+
+    private void completeExtraction(Document document, InvoiceProcessingService.LlmExtractionResult llmResult) {
+        InvoiceProcessingService.ProcessingResult result =
+            processingService.processDocumentWithLlmResult(document, llmResult);
+
+        documentRepository.updateExtractionResult(document);
+
+        extractionRepository.deleteByDocumentId(document.getId());
+        if (result.success() && result.extraction() != null) {
+            extractionRepository.insertAll(List.of(result.extraction()));
+        }
+    }
+
+    private void completeExtraction(
+            List<Document> documents,
+            Map<UUID, InvoiceProcessingService.LlmExtractionResult> llmResults) {
+        List<InvoiceExtraction> extractions = new ArrayList<>();
+        for (Document document : documents) {
+            InvoiceProcessingService.ProcessingResult result =
+                processingService.processDocumentWithLlmResult(document, llmResults.get(document.getId()));
+            extractionRepository.deleteByDocumentId(document.getId());
+            if (result.success() && result.extraction() != null) {
+                extractions.add(result.extraction());
+            }
+        }
+
+        documentRepository.saveAll(documents);
+        // The previous extractions were deleted above, so these are all new.
+        extractionRepository.insertAll(extractions);
+    }
+}
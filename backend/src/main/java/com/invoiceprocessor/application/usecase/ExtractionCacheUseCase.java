@@ -0,0 +1,25 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ExtractionCacheUseCase {
+
+    private final ExtractionResultCache cache;
+
+    public ExtractionCacheUseCase(ExtractionResultCache cache) {
+        this.cache = cache;
+    }
+
+    public ExtractionResultCache.CacheStats stats() {
+        return cache.stats();
+    }
+
+    public int invalidateModel(String model) {
+        if (model == null || model.isBlank()) {
+            throw new IllegalArgumentException("Model is required");
+        }
+        return cache.invalidateModel(model);
+    }
+}
@@ -9,8 +9,9 @@ import com.invoiceprocessor.domain.entity.Stack;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,16 +36,22 @@ public class GetStackDetailsUseCase {
 
         List<Document> documents = documentRepository.findByStackId(stackId);
 
+        // One query for all extractions of the stack instead of one per document.
+        Map<UUID, InvoiceExtraction> extractionsByDocument = extractionRepository
+            .findByDocumentIds(documents.stream().map(Document::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(InvoiceExtraction::getDocumentId, Function.identity(), (a, b) -> a));
+
         List<DocumentDetails> documentDetails = documents.stream()
             .map(doc -> {
-                Optional<InvoiceExtraction> extraction = extractionRepository.findByDocumentId(doc.getId());
+                InvoiceExtraction extraction = extractionsByDocument.get(doc.getId());
                 return new DocumentDetails(
                     doc.getId(),
                     doc.getType(),
                     doc.getFilename(),
                     doc.getLlmClassification(),
                     doc.getExtractionStatus(),
-                    extraction.map(InvoiceDetails::from).orElse(null)
+                    extraction != null ? InvoiceDetails.from(extraction) : null
                 );
             })
             .collect(Collectors.toList());
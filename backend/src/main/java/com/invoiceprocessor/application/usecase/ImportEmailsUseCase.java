@@ -2,20 +2,18 @@ package com.invoiceprocessor.application.usecase;
 
 import com.invoiceprocessor.application.port.out.DocumentRepository;
 import com.invoiceprocessor.application.port.out.EmailFetcher;
-import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
-import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
 import com.invoiceprocessor.application.port.out.StackRepository;
 import com.invoiceprocessor.application.port.out.StorageService;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.DocumentType;
-import com.invoiceprocessor.domain.entity.ExtractionStatus;
 import com.invoiceprocessor.domain.entity.Stack;
-import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
@@ -31,32 +29,35 @@ public class ImportEmailsUseCase {
     private final EmailFetcher emailFetcher;
     private final StackRepository stackRepository;
     private final DocumentRepository documentRepository;
-    private final InvoiceExtractionRepository extractionRepository;
-    private final LlmInvoiceExtractor llmExtractor;
-    private final InvoiceProcessingService processingService;
+    private final ExtractionJobRepository extractionJobRepository;
     private final StorageService storageService;
     private final String emailFolder;
+    private final TransactionTemplate transactionTemplate;
 
     public ImportEmailsUseCase(
             EmailFetcher emailFetcher,
             StackRepository stackRepository,
             DocumentRepository documentRepository,
-            InvoiceExtractionRepository extractionRepository,
-            LlmInvoiceExtractor llmExtractor,
-            InvoiceProcessingService processingService,
+            ExtractionJobRepository extractionJobRepository,
             StorageService storageService,
+            PlatformTransactionManager transactionManager,
             @Value("${email.import.folder:Test123}") String emailFolder) {
         this.emailFetcher = emailFetcher;
         this.stackRepository = stackRepository;
         this.documentRepository = documentRepository;
-        this.extractionRepository = extractionRepository;
-        this.llmExtractor = llmExtractor;
-        this.processingService = processingService;
+        this.extractionJobRepository = extractionJobRepository;
         this.storageService = storageService;
         this.emailFolder = emailFolder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Imports the unread emails of the folder one by one. Each email's content
+     * is uploaded before its stack is stored in a short transaction of its
+     * own, and the email is only marked as read once that transaction has
+     * committed, so neither the mail server nor storage is waited on while a
+     * database connection is held.
+     */
     public ImportEmailsResponse execute() {
         logger.info("Starting email import from folder: {}", emailFolder);
         List<EmailFetcher.EmailMessage> emails;
@@ -75,15 +76,18 @@ public class ImportEmailsUseCase {
         for (EmailFetcher.EmailMessage email : emails) {
             try {
                 logger.debug("Processing email: {} - {}", email.messageId(), email.subject());
-                UUID stackId = processEmail(email);
-                createdStackIds.add(stackId);
-                
-                // Count documents for this stack
-                List<Document> documents = documentRepository.findByStackId(stackId);
-                totalDocuments += documents.size();
-                logger.info("Created stack {} with {} documents", stackId, documents.size());
+                Stack stack = buildStack(email);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(stack));
+                } catch (RuntimeException e) {
+                    deleteUploadedContent(stack);
+                    throw e;
+                }
+                createdStackIds.add(stack.getId());
+                totalDocuments += stack.getDocumentCount();
+                logger.info("Created stack {} with {} documents", stack.getId(), stack.getDocumentCount());
                 
-                // Mark email as read after successful processing
+                // Only once the stack is committed; a failure before leaves the email unread for the next run
                 emailFetcher.markAsRead(email.messageId(), emailFolder);
             } catch (Exception e) {
                 errors++;
@@ -102,10 +106,9 @@ public class ImportEmailsUseCase {
         );
     }
 
-    private UUID processEmail(EmailFetcher.EmailMessage email) {
+    private Stack buildStack(EmailFetcher.EmailMessage email) {
         // Create stack
         Stack stack = new Stack(email.from(), email.to(), email.subject());
-        stack = stackRepository.save(stack);
 
         List<Document> documents = new ArrayList<>();
 
@@ -120,7 +123,7 @@ public class ImportEmailsUseCase {
                 );
 
                 Document emailBodyDoc = new Document(
-                    stack.getId(),
+                    stack,
                     DocumentType.EMAIL_BODY,
                     "email-body.txt",
                     contentLocation
@@ -148,7 +151,7 @@ public class ImportEmailsUseCase {
 
                     // Create document
                     Document doc = new Document(
-                        stack.getId(),
+                        stack,
                         docType,
                         attachment.filename(),
                         contentLocation
@@ -160,18 +163,33 @@ public class ImportEmailsUseCase {
             }
         }
 
-        // Save and process documents
-        for (Document document : documents) {
-            documentRepository.save(document);
-            processDocument(document);
-        }
-
-        // Update stack status
         stack.setDocuments(documents);
         stack.updateStatusFromDocuments();
+        return stack;
+    }
+
+    private void persist(Stack stack) {
+        // Save the stack before its documents
         stackRepository.save(stack);
+        documentRepository.saveAll(stack.getDocuments());
 
-        return stack.getId();
+        // Queued in the same transaction; extraction workers pick the jobs up once it commits
+        extractionJobRepository.enqueue(stack.getDocuments());
+    }
+
+    /**
+     * Removes the content of a stack that was never stored, so a failed
+     * transaction doesn't leave unreferenced objects behind.
+     */
+    private void deleteUploadedContent(Stack stack) {
+        for (Document document : stack.getDocuments()) {
+            try {
+                storageService.deleteFile(document.getContentLocation());
+            } catch (Exception e) {
+                logger.warn("Failed to delete content {} of unstored stack {}: {}",
+                    document.getContentLocation(), stack.getId(), e.getMessage());
+            }
+        }
     }
 
     private DocumentType determineDocumentType(String contentType, String filename) {
@@ -199,23 +217,6 @@ public class ImportEmailsUseCase {
         return "stacks/" + stackId + "/" + System.currentTimeMillis() + "-" + filename;
     }
 
-    private void processDocument(Document document) {
-        document.setExtractionStatus(ExtractionStatus.EXTRACTING);
-        documentRepository.save(document);
-
-        InvoiceProcessingService.LlmExtractionResult llmResult = llmExtractor.extract(document);
-        InvoiceProcessingService.ProcessingResult result = processingService.processDocumentWithLlmResult(document, llmResult);
-
-        documentRepository.save(document);
-
-        if (result.success() && result.extraction() != null) {
-            extractionRepository.deleteByDocumentId(document.getId());
-            extractionRepository.save(result.extraction());
-        } else {
-            extractionRepository.deleteByDocumentId(document.getId());
-        }
-    }
-
     public record ImportEmailsResponse(
         int emailsFound,
         int stacksCreated,
@@ -1,62 +1,65 @@
 package com.invoiceprocessor.application.usecase;
 
-import com.invoiceprocessor.application.port.out.DocumentRepository;
 import com.invoiceprocessor.application.port.out.StackRepository;
-import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.Stack;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ListStacksUseCase {
 
     private final StackRepository stackRepository;
-    private final DocumentRepository documentRepository;
 
-    public ListStacksUseCase(StackRepository stackRepository, DocumentRepository documentRepository) {
+    public ListStacksUseCase(StackRepository stackRepository) {
         this.stackRepository = stackRepository;
-        this.documentRepository = documentRepository;
     }
 
     public StackListResponse execute(int page, int size) {
+        // Counts come from the stack counters, so the documents table is not read.
         List<Stack> stacks = stackRepository.findAll(page, size);
         long total = stackRepository.count();
 
-        Map<UUID, List<Document>> documentsByStackId = stacks.stream()
-            .map(Stack::getId)
-            .collect(Collectors.toMap(
-                Function.identity(),
-                stackId -> documentRepository.findByStackId(stackId)
-            ));
-
         List<StackSummary> summaries = stacks.stream()
-            .map(stack -> {
-                List<Document> documents = documentsByStackId.getOrDefault(stack.getId(), List.of());
-                long documentCount = documents.size();
-                long invoiceCount = documents.stream()
-                    .filter(doc -> doc.getExtractionStatus().equals(com.invoiceprocessor.domain.entity.ExtractionStatus.PROCESSED))
-                    .count();
-                
-                return new StackSummary(
-                    stack.getId(),
-                    stack.getSubject(),
-                    stack.getFromAddress(),
-                    stack.getReceivedAt(),
-                    stack.getStatus(),
-                    documentCount,
-                    invoiceCount
-                );
-            })
+            .map(StackSummary::from)
             .collect(Collectors.toList());
 
         return new StackListResponse(summaries, total, page, size);
     }
 
+    /**
+     * Cursor mode of the listing. Cost does not grow with the page depth and
+     * no total is computed. A null or blank cursor starts at the newest stack.
+     *
+     * @throws IllegalArgumentException if the cursor is not a valid token
+     */
+    public StackCursorResponse executeAfter(String cursor, int size) {
+        StackCursor position = cursor == null || cursor.isBlank() ? null : StackCursor.decode(cursor);
+
+        // One extra row tells whether there is a next page without a count query.
+        List<Stack> stacks = stackRepository.findAfter(
+            position != null ? position.receivedAt() : null,
+            position != null ? position.id() : null,
+            size + 1
+        );
+
+        boolean hasMore = stacks.size() > size;
+        List<StackSummary> summaries = stacks.stream()
+            .limit(size)
+            .map(StackSummary::from)
+            .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore && !summaries.isEmpty()) {
+            StackSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = new StackCursor(last.receivedAt(), last.id()).encode();
+        }
+
+        return new StackCursorResponse(summaries, nextCursor, size);
+    }
+
     public record StackSummary(
         UUID id,
         String subject,
@@ -64,8 +67,22 @@ public class ListStacksUseCase {
         java.time.Instant receivedAt,
         com.invoiceprocessor.domain.entity.StackStatus status,
         long documentCount,
-        long invoiceCount
-    ) {}
+        long invoiceCount,
+        long errorCount
+    ) {
+        static StackSummary from(Stack stack) {
+            return new StackSummary(
+                stack.getId(),
+                stack.getSubject(),
+                stack.getFromAddress(),
+                stack.getReceivedAt(),
+                stack.getStatus(),
+                stack.getDocumentCount(),
+                stack.getInvoiceCount(),
+                stack.getErrorCount()
+            );
+        }
+    }
 
     public record StackListResponse(
         List<StackSummary> stacks,
@@ -73,4 +90,10 @@ public class ListStacksUseCase {
         int page,
         int size
     ) {}
+
+    public record StackCursorResponse(
+        List<StackSummary> stacks,
+        String nextCursor,
+        int size
+    ) {}
 }
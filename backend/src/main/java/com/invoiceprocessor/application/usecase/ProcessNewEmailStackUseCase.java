@@ -1,14 +1,11 @@
 package com.invoiceprocessor.application.usecase;
 
 import com.invoiceprocessor.application.port.out.DocumentRepository;
-import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
-import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
 import com.invoiceprocessor.application.port.out.StackRepository;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.DocumentType;
-import com.invoiceprocessor.domain.entity.ExtractionStatus;
 import com.invoiceprocessor.domain.entity.Stack;
-import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,33 +18,26 @@ public class ProcessNewEmailStackUseCase {
 
     private final StackRepository stackRepository;
     private final DocumentRepository documentRepository;
-    private final InvoiceExtractionRepository extractionRepository;
-    private final LlmInvoiceExtractor llmExtractor;
-    private final InvoiceProcessingService processingService;
+    private final ExtractionJobRepository extractionJobRepository;
 
     public ProcessNewEmailStackUseCase(
             StackRepository stackRepository,
             DocumentRepository documentRepository,
-            InvoiceExtractionRepository extractionRepository,
-            LlmInvoiceExtractor llmExtractor,
-            InvoiceProcessingService processingService) {
+            ExtractionJobRepository extractionJobRepository) {
         this.stackRepository = stackRepository;
         this.documentRepository = documentRepository;
-        this.extractionRepository = extractionRepository;
-        this.llmExtractor = llmExtractor;
-        this.processingService = processingService;
+        this.extractionJobRepository = extractionJobRepository;
     }
 
     @Transactional
     public UUID execute(SimulateEmailRequest request) {
         Stack stack = new Stack(request.from(), request.to(), request.subject());
-        stack = stackRepository.save(stack);
 
         List<Document> documents = new ArrayList<>();
 
         if (request.body() != null && !request.body().trim().isEmpty()) {
             Document emailBodyDoc = new Document(
-                stack.getId(),
+                stack,
                 DocumentType.EMAIL_BODY,
                 null,
                 "email-body-" + stack.getId()
@@ -58,7 +48,7 @@ public class ProcessNewEmailStackUseCase {
         if (request.attachments() != null) {
             for (AttachmentInfo attachment : request.attachments()) {
                 Document doc = new Document(
-                    stack.getId(),
+                    stack,
                     attachment.type(),
                     attachment.filename(),
                     attachment.contentReference()
@@ -67,33 +57,14 @@ public class ProcessNewEmailStackUseCase {
             }
         }
 
-        for (Document document : documents) {
-            documentRepository.save(document);
-            processDocument(document);
-        }
-
         stack.setDocuments(documents);
         stack.updateStatusFromDocuments();
         stackRepository.save(stack);
+        documentRepository.saveAll(documents);
 
-        return stack.getId();
-    }
-
-    private void processDocument(Document document) {
-        document.setExtractionStatus(ExtractionStatus.EXTRACTING);
-        documentRepository.save(document);
+        extractionJobRepository.enqueue(documents);
 
-        InvoiceProcessingService.LlmExtractionResult llmResult = llmExtractor.extract(document);
-        InvoiceProcessingService.ProcessingResult result = processingService.processDocumentWithLlmResult(document, llmResult);
-
-        documentRepository.save(document);
-
-        if (result.success() && result.extraction() != null) {
-            extractionRepository.deleteByDocumentId(document.getId());
-            extractionRepository.save(result.extraction());
-        } else {
-            extractionRepository.deleteByDocumentId(document.getId());
-        }
+        return stack.getId();
     }
 
     public record SimulateEmailRequest(
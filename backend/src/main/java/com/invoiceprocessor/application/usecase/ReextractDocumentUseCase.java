@@ -1,16 +1,17 @@
 package com.invoiceprocessor.application.usecase;
 
 import com.invoiceprocessor.application.port.out.DocumentRepository;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
 import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
-import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
 import com.invoiceprocessor.application.port.out.StackRepository;
 import com.invoiceprocessor.domain.entity.Document;
 import com.invoiceprocessor.domain.entity.ExtractionStatus;
+import com.invoiceprocessor.domain.entity.LlmClassification;
 import com.invoiceprocessor.domain.entity.Stack;
-import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -19,20 +20,17 @@ public class ReextractDocumentUseCase {
     private final DocumentRepository documentRepository;
     private final InvoiceExtractionRepository extractionRepository;
     private final StackRepository stackRepository;
-    private final LlmInvoiceExtractor llmExtractor;
-    private final InvoiceProcessingService processingService;
+    private final ExtractionJobRepository extractionJobRepository;
 
     public ReextractDocumentUseCase(
             DocumentRepository documentRepository,
             InvoiceExtractionRepository extractionRepository,
             StackRepository stackRepository,
-            LlmInvoiceExtractor llmExtractor,
-            InvoiceProcessingService processingService) {
+            ExtractionJobRepository extractionJobRepository) {
         this.documentRepository = documentRepository;
         this.extractionRepository = extractionRepository;
         this.stackRepository = stackRepository;
-        this.llmExtractor = llmExtractor;
-        this.processingService = processingService;
+        this.extractionJobRepository = extractionJobRepository;
     }
 
     @Transactional
@@ -42,23 +40,17 @@ public class ReextractDocumentUseCase {
 
         extractionRepository.deleteByDocumentId(documentId);
 
-        document.setExtractionStatus(ExtractionStatus.EXTRACTING);
+        document.setLlmClassification(LlmClassification.UNKNOWN);
+        document.setExtractionStatus(ExtractionStatus.NEW);
         documentRepository.save(document);
 
-        InvoiceProcessingService.LlmExtractionResult llmResult = llmExtractor.extract(document);
-        InvoiceProcessingService.ProcessingResult result = processingService.processDocumentWithLlmResult(document, llmResult);
-
-        documentRepository.save(document);
-
-        if (result.success() && result.extraction() != null) {
-            extractionRepository.save(result.extraction());
-        }
-
         Stack stack = stackRepository.findById(document.getStackId())
             .orElseThrow(() -> new RuntimeException("Stack not found: " + document.getStackId()));
-        
+
         stack.setDocuments(documentRepository.findByStackId(stack.getId()));
         stack.updateStatusFromDocuments();
         stackRepository.save(stack);
+
+        extractionJobRepository.enqueue(List.of(document));
     }
 }
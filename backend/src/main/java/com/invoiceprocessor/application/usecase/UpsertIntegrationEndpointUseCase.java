@@ -1,10 +1,13 @@
 package com.invoiceprocessor.application.usecase;
 
 import com.invoiceprocessor.application.port.out.IntegrationEndpointRepository;
+import com.invoiceprocessor.application.port.out.StorageService;
 import com.invoiceprocessor.domain.entity.EndpointType;
 import com.invoiceprocessor.domain.entity.IntegrationEndpoint;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.Map;
@@ -14,9 +17,13 @@ import java.util.UUID;
 public class UpsertIntegrationEndpointUseCase {
 
     private final IntegrationEndpointRepository repository;
+    private final StorageService storageService;
 
-    public UpsertIntegrationEndpointUseCase(IntegrationEndpointRepository repository) {
+    public UpsertIntegrationEndpointUseCase(
+            IntegrationEndpointRepository repository,
+            StorageService storageService) {
         this.repository = repository;
+        this.storageService = storageService;
     }
 
     @Transactional
@@ -33,7 +40,19 @@ public class UpsertIntegrationEndpointUseCase {
         endpoint.setType(request.type());
         endpoint.setSettings(request.settings());
 
-        return repository.save(endpoint);
+        IntegrationEndpoint saved = repository.save(endpoint);
+
+        if (request.type() == EndpointType.STORAGE_TARGET) {
+            // Only after commit, otherwise the reload could still read the old settings.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    storageService.invalidateConfiguration();
+                }
+            });
+        }
+
+        return saved;
     }
 
     public record UpsertIntegrationEndpointRequest(
@@ -0,0 +1,33 @@
+package com.invoiceprocessor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pool used to run LLM extraction outside of the ingest transaction.
+ *
+ * Concurrency bounds the number of simultaneous LLM round-trips (and therefore
+ * the number of pooled DB connections extraction can use at once); the queue
+ * holds jobs this instance has claimed but not started yet. Keep it small so
+ * other instances can pick up the remaining backlog.
+ */
+@Configuration
+public class ExtractionConfig {
+
+    @Bean(name = "extractionExecutor")
+    public ThreadPoolTaskExecutor extractionExecutor(
+            @Value("${extraction.worker.concurrency:4}") int concurrency,
+            @Value("${extraction.worker.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("extraction-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,10 +1,13 @@
 package com.invoiceprocessor.domain.entity;
 
+import java.time.Instant;
 import java.util.UUID;
 
 public class Document {
     private UUID id;
     private UUID stackId;
+    // Copy of the stack's receivedAt; documents are partitioned by it together with their stack.
+    private Instant receivedAt;
     private DocumentType type;
     private String filename;
     private String contentLocation;
@@ -25,6 +28,11 @@ public class Document {
         this.contentLocation = contentLocation;
     }
 
+    public Document(Stack stack, DocumentType type, String filename, String contentLocation) {
+        this(stack.getId(), type, filename, contentLocation);
+        this.receivedAt = stack.getReceivedAt();
+    }
+
     public UUID getId() {
         return id;
     }
@@ -41,6 +49,14 @@ public class Document {
         this.stackId = stackId;
     }
 
+    public Instant getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(Instant receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
     public DocumentType getType() {
         return type;
     }
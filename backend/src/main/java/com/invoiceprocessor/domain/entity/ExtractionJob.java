@@ -0,0 +1,155 @@
+package com.invoiceprocessor.domain.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class ExtractionJob {
+    private UUID id;
+    private UUID documentId;
+    private UUID stackId;
+    private ExtractionJobStatus status;
+    private int attempts;
+    private Instant availableAt;
+    private String lockedBy;
+    private Instant lockedAt;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public ExtractionJob() {
+        this.id = UUID.randomUUID();
+        this.status = ExtractionJobStatus.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+        this.availableAt = this.createdAt;
+    }
+
+    public ExtractionJob(UUID documentId, UUID stackId) {
+        this();
+        this.documentId = documentId;
+        this.stackId = stackId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(UUID documentId) {
+        this.documentId = documentId;
+    }
+
+    public UUID getStackId() {
+        return stackId;
+    }
+
+    public void setStackId(UUID stackId) {
+        this.stackId = stackId;
+    }
+
+    public ExtractionJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExtractionJobStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(Instant availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public Instant getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(Instant lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public void claim(String workerId, Instant now) {
+        this.status = ExtractionJobStatus.RUNNING;
+        this.lockedBy = workerId;
+        this.lockedAt = now;
+        this.attempts++;
+        this.updatedAt = now;
+    }
+
+    public void retryAt(Instant availableAt, String error) {
+        this.status = ExtractionJobStatus.PENDING;
+        this.availableAt = availableAt;
+        this.lockedBy = null;
+        this.lockedAt = null;
+        this.lastError = error;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Like {@link #retryAt(Instant, String)}, but does not count the attempt.
+     * Used when the job could not run for reasons outside the document,
+     * such as the LLM provider being down.
+     */
+    public void postpone(Instant availableAt, String error) {
+        this.attempts = Math.max(this.attempts - 1, 0);
+        retryAt(availableAt, error);
+    }
+
+    public void fail(String error) {
+        this.status = ExtractionJobStatus.FAILED;
+        this.lockedBy = null;
+        this.lockedAt = null;
+        this.lastError = error;
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,7 @@
+package com.invoiceprocessor.domain.entity;
+
+public enum ExtractionJobStatus {
+    PENDING,
+    RUNNING,
+    FAILED
+}
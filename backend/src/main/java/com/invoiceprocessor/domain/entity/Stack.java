@@ -12,6 +12,9 @@ public class Stack {
     private String toAddress;
     private String subject;
     private StackStatus status;
+    private int documentCount;
+    private int invoiceCount;
+    private int errorCount;
     private List<Document> documents;
 
     public Stack() {
@@ -76,6 +79,30 @@ public class Stack {
         this.status = status;
     }
 
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public void setDocumentCount(int documentCount) {
+        this.documentCount = documentCount;
+    }
+
+    public int getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    public void setInvoiceCount(int invoiceCount) {
+        this.invoiceCount = invoiceCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
     public List<Document> getDocuments() {
         return documents;
     }
@@ -88,11 +115,20 @@ public class Stack {
         this.documents.add(document);
     }
 
+    /**
+     * Recomputes the status and the document counters from the attached
+     * documents, which must be the complete set of documents of this stack.
+     */
     public void updateStatusFromDocuments() {
-        boolean hasError = documents.stream()
-            .anyMatch(doc -> doc.getExtractionStatus() == ExtractionStatus.ERROR);
-        
-        if (hasError) {
+        this.documentCount = documents.size();
+        this.invoiceCount = (int) documents.stream()
+            .filter(doc -> doc.getExtractionStatus() == ExtractionStatus.PROCESSED)
+            .count();
+        this.errorCount = (int) documents.stream()
+            .filter(doc -> doc.getExtractionStatus() == ExtractionStatus.ERROR)
+            .count();
+
+        if (errorCount > 0) {
             this.status = StackStatus.ERROR;
             return;
         }
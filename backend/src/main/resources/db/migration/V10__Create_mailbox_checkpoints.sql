@@ -0,0 +1,10 @@
+-- Sync position of the mail-import service per email source and folder.
+-- last_seen_uid is only meaningful while the folder keeps the same uid_validity.
+CREATE TABLE mailbox_checkpoints (
+    endpoint_id UUID NOT NULL REFERENCES integration_endpoints(id) ON DELETE CASCADE,
+    folder VARCHAR(255) NOT NULL,
+    uid_validity BIGINT NOT NULL,
+    last_seen_uid BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (endpoint_id, folder)
+);
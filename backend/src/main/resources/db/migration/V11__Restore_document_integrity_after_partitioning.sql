@@ -0,0 +1,62 @@
+-- V9 had to drop the foreign keys of invoice_extractions and extraction_jobs
+-- into documents: a partitioned table only supports unique constraints that
+-- contain the partition key, so documents(id) can no longer be referenced.
+-- This restores what those keys did with triggers, and makes ids unique
+-- again within each partition.
+
+-- Ids are unique per partition. A document never changes partition (its
+-- received_at is copied from the stack once), and ids are random UUIDs, so
+-- this is as strong as the old primary keys in practice.
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent IN ('stacks'::regclass, 'documents'::regclass)
+    LOOP
+        EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %I (id)', r.relname || '_id_key', r.relname);
+    END LOOP;
+END $$;
+
+-- Rows orphaned while the foreign keys were missing.
+DELETE FROM invoice_extractions e WHERE NOT EXISTS (SELECT 1 FROM documents d WHERE d.id = e.document_id);
+DELETE FROM extraction_jobs j WHERE NOT EXISTS (SELECT 1 FROM documents d WHERE d.id = j.document_id);
+
+-- ON DELETE CASCADE of the old foreign keys.
+CREATE FUNCTION delete_document_dependents() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM invoice_extractions WHERE document_id = OLD.id;
+    DELETE FROM extraction_jobs WHERE document_id = OLD.id;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_documents_delete_dependents
+    AFTER DELETE ON documents
+    FOR EACH ROW EXECUTE FUNCTION delete_document_dependents();
+
+-- The reference check of the old foreign keys. Deferred to commit, since a
+-- stack's documents and jobs are written in one transaction in any order.
+CREATE FUNCTION check_document_exists() RETURNS trigger AS $$
+BEGIN
+    PERFORM 1 FROM documents WHERE id = NEW.document_id FOR KEY SHARE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'document % referenced by %.document_id does not exist', NEW.document_id, TG_TABLE_NAME
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER trg_invoice_extractions_document_exists
+    AFTER INSERT OR UPDATE OF document_id ON invoice_extractions
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION check_document_exists();
+
+CREATE CONSTRAINT TRIGGER trg_extraction_jobs_document_exists
+    AFTER INSERT OR UPDATE OF document_id ON extraction_jobs
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION check_document_exists();
@@ -0,0 +1,33 @@
+-- Durable queue of pending LLM extractions, claimed by workers with FOR UPDATE SKIP LOCKED
+CREATE TABLE extraction_jobs (
+    id UUID PRIMARY KEY,
+    document_id UUID NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255),
+    locked_at TIMESTAMP,
+    last_error VARCHAR(2000),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+);
+
+-- At most one pending job per document; re-extraction requests collapse into it
+CREATE UNIQUE INDEX idx_extraction_jobs_pending_document
+    ON extraction_jobs(document_id)
+    WHERE status = 'PENDING';
+
+CREATE INDEX idx_extraction_jobs_claim
+    ON extraction_jobs(available_at)
+    WHERE status = 'PENDING';
+
+CREATE INDEX idx_extraction_jobs_running
+    ON extraction_jobs(locked_at)
+    WHERE status = 'RUNNING';
+
+-- Re-queue documents left unfinished by the previous in-memory pipeline
+INSERT INTO extraction_jobs (id, document_id, status, attempts, available_at, created_at, updated_at)
+SELECT gen_random_uuid(), id, 'PENDING', 0, NOW(), NOW(), NOW()
+FROM documents
+WHERE extraction_status IN ('NEW', 'EXTRACTING');
@@ -0,0 +1,9 @@
+-- Lets workers group claimed jobs by stack and recompute each stack status once
+ALTER TABLE extraction_jobs ADD COLUMN stack_id UUID;
+
+UPDATE extraction_jobs j
+SET stack_id = d.stack_id
+FROM documents d
+WHERE d.id = j.document_id;
+
+ALTER TABLE extraction_jobs ALTER COLUMN stack_id SET NOT NULL;
@@ -0,0 +1,16 @@
+-- Persistent tier of the extraction result cache, keyed by document content hash
+CREATE TABLE extraction_result_cache (
+    content_hash VARCHAR(64) NOT NULL,
+    model VARCHAR(255) NOT NULL,
+    prompt_version VARCHAR(50) NOT NULL,
+    classification VARCHAR(50) NOT NULL,
+    invoice_number VARCHAR(255),
+    invoice_date DATE,
+    supplier_name VARCHAR(255),
+    total_amount DECIMAL(19, 2),
+    currency VARCHAR(10),
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (content_hash, model, prompt_version)
+);
+
+CREATE INDEX idx_extraction_result_cache_model ON extraction_result_cache(model);
@@ -0,0 +1,4 @@
+-- Keyset pagination of the stack listing orders by (received_at DESC, id DESC);
+-- the id tie-breaker lets the seek predicate and the ORDER BY use one index
+DROP INDEX IF EXISTS idx_stacks_received_at;
+CREATE INDEX idx_stacks_received_at_id ON stacks(received_at DESC, id DESC);
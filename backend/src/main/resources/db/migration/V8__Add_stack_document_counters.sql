@@ -0,0 +1,19 @@
+-- Per-stack document counters, kept up to date on write so listings never
+-- aggregate the documents table
+ALTER TABLE stacks ADD COLUMN document_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE stacks ADD COLUMN invoice_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE stacks ADD COLUMN error_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE stacks s
+SET document_count = c.document_count,
+    invoice_count = c.invoice_count,
+    error_count = c.error_count
+FROM (
+    SELECT stack_id,
+           COUNT(*) AS document_count,
+           COUNT(*) FILTER (WHERE extraction_status = 'PROCESSED') AS invoice_count,
+           COUNT(*) FILTER (WHERE extraction_status = 'ERROR') AS error_count
+    FROM documents
+    GROUP BY stack_id
+) c
+WHERE c.stack_id = s.id;
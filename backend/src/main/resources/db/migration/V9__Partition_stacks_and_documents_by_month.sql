@@ -0,0 +1,113 @@
+-- Range-partition stacks and documents by calendar month of the stack's
+-- received_at. documents carries a copy of received_at as its partition key,
+-- so a stack and its documents always land in the same month and old months
+-- can be detached or dropped as a whole instead of deleted row by row.
+--
+-- Partitioned tables need the partition key in every unique constraint, so the
+-- primary keys become (id, received_at) and foreign keys that only know a
+-- document id (invoice_extractions, extraction_jobs) no longer reference
+-- documents. The archival job cleans those rows up when a month is detached.
+--
+-- received_at becomes TIMESTAMPTZ so that partitions are calendar months in
+-- UTC whatever the JVM's time zone is. The old TIMESTAMP values were written
+-- as wall-clock time in the application's time zone, which the JDBC driver
+-- also sets as this session's TimeZone, so casting them to TIMESTAMPTZ here
+-- reads them in the zone they were written in.
+
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN
+        SELECT conrelid::regclass AS table_name, conname
+        FROM pg_constraint
+        WHERE contype = 'f'
+          AND confrelid IN ('stacks'::regclass, 'documents'::regclass)
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.table_name, r.conname);
+    END LOOP;
+END $$;
+
+CREATE TABLE stacks_partitioned (
+    id UUID NOT NULL,
+    received_at TIMESTAMPTZ NOT NULL,
+    from_address VARCHAR(255) NOT NULL,
+    to_address VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    document_count INTEGER NOT NULL DEFAULT 0,
+    invoice_count INTEGER NOT NULL DEFAULT 0,
+    error_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT pk_stacks PRIMARY KEY (id, received_at)
+) PARTITION BY RANGE (received_at);
+
+CREATE TABLE documents_partitioned (
+    id UUID NOT NULL,
+    stack_id UUID NOT NULL,
+    received_at TIMESTAMPTZ NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    filename VARCHAR(500),
+    content_location VARCHAR(1000) NOT NULL,
+    llm_classification VARCHAR(50) NOT NULL,
+    extraction_status VARCHAR(50) NOT NULL,
+    CONSTRAINT pk_documents PRIMARY KEY (id, received_at)
+) PARTITION BY RANGE (received_at);
+
+-- One partition per UTC month from the oldest stack up to a year
+-- ahead; the scheduled partition job keeps creating months ahead from here
+-- on. The default partitions are a safety net only and stay empty as long
+-- as that job runs.
+DO $$
+DECLARE
+    partition_month TIMESTAMP;
+    last_month TIMESTAMP := date_trunc('month', (NOW() AT TIME ZONE 'UTC') + INTERVAL '12 months');
+    suffix TEXT;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(received_at)::timestamptz AT TIME ZONE 'UTC'),
+                    date_trunc('month', NOW() AT TIME ZONE 'UTC'))
+    INTO partition_month
+    FROM stacks;
+
+    WHILE partition_month <= last_month LOOP
+        suffix := to_char(partition_month, 'YYYY_MM');
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF stacks_partitioned FOR VALUES FROM (%L) TO (%L)',
+            'stacks_p' || suffix,
+            partition_month AT TIME ZONE 'UTC', (partition_month + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF documents_partitioned FOR VALUES FROM (%L) TO (%L)',
+            'documents_p' || suffix,
+            partition_month AT TIME ZONE 'UTC', (partition_month + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE stacks_pdefault PARTITION OF stacks_partitioned DEFAULT;
+CREATE TABLE documents_pdefault PARTITION OF documents_partitioned DEFAULT;
+
+INSERT INTO stacks_partitioned (id, received_at, from_address, to_address, subject, status,
+                                document_count, invoice_count, error_count)
+SELECT id, received_at::timestamptz, from_address, to_address, subject, status,
+       document_count, invoice_count, error_count
+FROM stacks;
+
+INSERT INTO documents_partitioned (id, stack_id, received_at, type, filename, content_location,
+                                   llm_classification, extraction_status)
+SELECT d.id, d.stack_id, s.received_at::timestamptz, d.type, d.filename, d.content_location,
+       d.llm_classification, d.extraction_status
+FROM documents d
+JOIN stacks s ON s.id = d.stack_id;
+
+DROP TABLE documents;
+DROP TABLE stacks;
+
+ALTER TABLE stacks_partitioned RENAME TO stacks;
+ALTER TABLE documents_partitioned RENAME TO documents;
+
+ALTER TABLE documents
+    ADD CONSTRAINT fk_documents_stack
+    FOREIGN KEY (stack_id, received_at) REFERENCES stacks(id, received_at) ON DELETE CASCADE;
+
+CREATE INDEX idx_stacks_received_at_id ON stacks(received_at DESC, id DESC);
+CREATE INDEX idx_documents_stack_id ON documents(stack_id);
+CREATE INDEX idx_documents_extraction_status ON documents(extraction_status);
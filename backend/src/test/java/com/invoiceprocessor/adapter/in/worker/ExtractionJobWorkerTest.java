@@ -0,0 +1,54 @@
+package com.invoiceprocessor.adapter.in.worker;
+
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
+import com.invoiceprocessor.application.usecase.ExtractDocumentUseCase;
+import com.invoiceprocessor.domain.entity.ExtractionJob;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+
+class ExtractionJobWorkerTest {
+
+    private final ExtractionJobRepository jobRepository = mock(ExtractionJobRepository.class);
+    private final ExtractDocumentUseCase extractDocumentUseCase = mock(ExtractDocumentUseCase.class);
+    private final ExtractionJobWorker worker = new ExtractionJobWorker(
+        jobRepository, extractDocumentUseCase, Runnable::run, 1, 1, 10, 1, 600, 5, 1000);
+
+    @Test
+    void testPoll_CompletingJobFails_ShouldNotRetryOrFailExtractedDocument() {
+        ExtractionJob first = job();
+        ExtractionJob second = job();
+        when(jobRepository.claimBatch(anyString(), anyInt())).thenReturn(List.of(first, second));
+        doThrow(new IllegalStateException("connection reset")).when(jobRepository).deleteById(first.getId());
+
+        worker.poll();
+
+        verify(extractDocumentUseCase).execute(first.getDocumentId());
+        verify(extractDocumentUseCase).execute(second.getDocumentId());
+        verify(jobRepository).deleteById(second.getId());
+        verify(jobRepository, never()).save(any());
+        verify(extractDocumentUseCase, never()).markFailed(any());
+    }
+
+    @Test
+    void testPoll_ExtractionFails_ShouldRetryLaterWithoutCompletingJob() {
+        ExtractionJob job = job();
+        when(jobRepository.claimBatch(anyString(), anyInt())).thenReturn(List.of(job));
+        doThrow(new IllegalStateException("broken document")).when(extractDocumentUseCase).execute(job.getDocumentId());
+
+        worker.poll();
+
+        verify(jobRepository, never()).deleteById(any());
+        verify(jobRepository).save(job);
+    }
+
+    private static ExtractionJob job() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+        job.setId(UUID.randomUUID());
+        job.setAttempts(1);
+        return job;
+    }
+}
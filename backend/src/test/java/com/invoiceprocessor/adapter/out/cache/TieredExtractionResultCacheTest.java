@@ -0,0 +1,102 @@
+package com.invoiceprocessor.adapter.out.cache;
+
+import com.invoiceprocessor.adapter.out.db.ExtractionCacheJpaEntity;
+import com.invoiceprocessor.adapter.out.db.ExtractionCacheJpaRepository;
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
+import com.invoiceprocessor.domain.entity.LlmClassification;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+class TieredExtractionResultCacheTest {
+
+    private ExtractionCacheJpaRepository jpaRepository;
+    private TieredExtractionResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jpaRepository = mock(ExtractionCacheJpaRepository.class);
+        when(jpaRepository.findById(any())).thenReturn(Optional.empty());
+        cache = new TieredExtractionResultCache(jpaRepository, mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    void testGet_AfterPut_ShouldHitMemoryWithoutDatabase() {
+        ExtractionResultCache.CacheKey key = key("a");
+        cache.put(key, invoiceResult());
+
+        Optional<InvoiceProcessingService.LlmExtractionResult> result = cache.get(key);
+
+        assertTrue(result.isPresent());
+        assertEquals(LlmClassification.INVOICE, result.get().classification());
+        assertEquals(1, cache.stats().memoryHits());
+        verify(jpaRepository, never()).findById(any());
+    }
+
+    @Test
+    void testPut_OverCapacity_ShouldEvictLeastRecentlyUsed() {
+        cache.put(key("a"), invoiceResult());
+        cache.put(key("b"), invoiceResult());
+        cache.get(key("a"));
+        cache.put(key("c"), invoiceResult());
+
+        assertTrue(cache.get(key("a")).isPresent());
+        assertTrue(cache.get(key("b")).isEmpty());
+        assertEquals(2, cache.stats().memoryEntries());
+        assertEquals(1, cache.stats().memoryEvictions());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void testGet_PersistedOnly_ShouldHitDatabaseAndPromote() {
+        ExtractionResultCache.CacheKey key = key("a");
+        ExtractionCacheJpaEntity entity = new ExtractionCacheJpaEntity(
+            "a", "gpt-4o-mini", "v1", LlmClassification.NOT_INVOICE,
+            null, null, null, null, null, Instant.now());
+        when(jpaRepository.findById(ExtractionCacheJpaEntity.keyOf(key))).thenReturn(Optional.of(entity));
+
+        assertEquals(LlmClassification.NOT_INVOICE, cache.get(key).orElseThrow().classification());
+        assertTrue(cache.get(key).isPresent());
+
+        assertEquals(1, cache.stats().databaseHits());
+        assertEquals(1, cache.stats().memoryHits());
+        verify(jpaRepository, times(1)).findById(any());
+    }
+
+    @Test
+    void testInvalidateModel_ShouldDropMemoryEntriesOfThatModelOnly() {
+        ExtractionResultCache.CacheKey other = new ExtractionResultCache.CacheKey("b", "gpt-4o", "v1");
+        cache.put(key("a"), invoiceResult());
+        cache.put(other, invoiceResult());
+
+        cache.invalidateModel("gpt-4o-mini");
+
+        assertTrue(cache.get(key("a")).isEmpty());
+        assertTrue(cache.get(other).isPresent());
+        verify(jpaRepository).deleteByModel("gpt-4o-mini");
+    }
+
+    private ExtractionResultCache.CacheKey key(String hash) {
+        return new ExtractionResultCache.CacheKey(hash, "gpt-4o-mini", "v1");
+    }
+
+    private InvoiceProcessingService.LlmExtractionResult invoiceResult() {
+        return new InvoiceProcessingService.LlmExtractionResult(
+            LlmClassification.INVOICE,
+            null,
+            LocalDate.of(2024, 1, 15),
+            "ACME Corp",
+            new BigDecimal("100.00"),
+            "EUR"
+        );
+    }
+}
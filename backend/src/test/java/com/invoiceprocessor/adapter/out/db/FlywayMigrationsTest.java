@@ -0,0 +1,223 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Runs the Flyway migrations against PostgreSQL and checks what the
+ * partitioning migrations promise: existing rows survive in the right
+ * monthly partitions, and the triggers of V11 still cascade deletes and
+ * reject references to missing documents.
+ */
+class FlywayMigrationsTest {
+
+    private final DataSource dataSource = PostgresTestDatabase.create();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void testMigrate_PopulatedDatabase_ShouldMoveRowsIntoUtcMonthPartitions() {
+        // Written by an application running in Berlin: 00:30 local on April 1st is still March in UTC.
+        PostgresTestDatabase.migrate(dataSource, "8", "Europe/Berlin");
+        UUID marchStack = insertLegacyStack("2024-04-01 00:30:00");
+        UUID marchDocument = insertLegacyDocument(marchStack);
+        UUID extraction = insertExtraction(marchDocument);
+        UUID job = insertJob(marchDocument, marchStack);
+        UUID mayStack = insertLegacyStack("2024-05-15 12:00:00");
+        UUID mayDocument = insertLegacyDocument(mayStack);
+        jdbcTemplate.update("UPDATE stacks SET document_count = 1");
+
+        // Between V9 and V11 nothing kept rows from pointing at missing documents.
+        PostgresTestDatabase.migrate(dataSource, "9", "Europe/Berlin");
+        UUID orphanExtraction = insertExtraction(UUID.randomUUID());
+        UUID orphanJob = insertJob(UUID.randomUUID(), marchStack);
+
+        PostgresTestDatabase.migrate(dataSource, null, "Europe/Berlin");
+
+        assertEquals("stacks_p2024_03", partitionOf("stacks", marchStack));
+        assertEquals("documents_p2024_03", partitionOf("documents", marchDocument));
+        assertEquals("stacks_p2024_05", partitionOf("stacks", mayStack));
+        assertEquals("documents_p2024_05", partitionOf("documents", mayDocument));
+        assertEquals(Instant.parse("2024-03-31T22:30:00Z"), receivedAt("stacks", marchStack));
+        assertEquals(Instant.parse("2024-03-31T22:30:00Z"), receivedAt("documents", marchDocument));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT document_count FROM stacks WHERE id = ?", Integer.class, marchStack));
+        assertTrue(exists("invoice_extractions", extraction));
+        assertTrue(exists("extraction_jobs", job));
+        assertFalse(exists("invoice_extractions", orphanExtraction));
+        assertFalse(exists("extraction_jobs", orphanJob));
+        assertEquals(0, count("stacks_pdefault"));
+        assertEquals(0, count("documents_pdefault"));
+    }
+
+    @Test
+    void testMigrate_DuplicateIdWithinPartition_ShouldBeRejected() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        UUID stack = insertStack(Instant.now());
+
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+            "INSERT INTO stacks (id, received_at, from_address, to_address, subject, status) "
+                + "VALUES (?, date_trunc('month', NOW()) + INTERVAL '1 second', 'a', 'b', 'c', 'NEW')",
+            stack));
+    }
+
+    @Test
+    void testDeleteStack_ShouldDeleteDocumentsExtractionsAndJobs() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        UUID stack = insertStack(Instant.now());
+        UUID document = insertDocument(stack);
+        UUID extraction = insertExtraction(document);
+        UUID job = insertJob(document, stack);
+
+        jdbcTemplate.update("DELETE FROM stacks WHERE id = ?", stack);
+
+        assertFalse(exists("documents", document));
+        assertFalse(exists("invoice_extractions", extraction));
+        assertFalse(exists("extraction_jobs", job));
+    }
+
+    @Test
+    void testDeleteDocument_ShouldDeleteOnlyItsExtractionAndJob() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        UUID stack = insertStack(Instant.now());
+        UUID deleted = insertDocument(stack);
+        UUID kept = insertDocument(stack);
+        insertExtraction(deleted);
+        insertJob(deleted, stack);
+        UUID keptExtraction = insertExtraction(kept);
+
+        jdbcTemplate.update("DELETE FROM documents WHERE id = ?", deleted);
+
+        assertEquals(1, count("invoice_extractions"));
+        assertEquals(0, count("extraction_jobs"));
+        assertTrue(exists("invoice_extractions", keptExtraction));
+    }
+
+    @Test
+    void testInsertExtraction_ForMissingDocument_ShouldFailWithForeignKeyViolation() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+
+        DataIntegrityViolationException e =
+            assertThrows(DataIntegrityViolationException.class, () -> insertExtraction(UUID.randomUUID()));
+
+        assertEquals("23503", ((SQLException) e.getMostSpecificCause()).getSQLState());
+        assertEquals(0, count("invoice_extractions"));
+    }
+
+    @Test
+    void testInsertJob_ForMissingDocument_ShouldFailWithForeignKeyViolation() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+
+        assertThrows(DataIntegrityViolationException.class, () -> insertJob(UUID.randomUUID(), UUID.randomUUID()));
+
+        assertEquals(0, count("extraction_jobs"));
+    }
+
+    @Test
+    void testInsertJobBeforeItsDocument_InOneTransaction_ShouldCommit() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        UUID stack = insertStack(Instant.now());
+        UUID document = UUID.randomUUID();
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            insertJob(document, stack);
+            jdbcTemplate.update("""
+                INSERT INTO documents (id, stack_id, received_at, type, content_location, llm_classification, extraction_status)
+                SELECT ?, id, received_at, 'EMAIL_BODY', 'body.txt', 'UNKNOWN', 'NEW' FROM stacks WHERE id = ?
+                """, document, stack);
+        });
+
+        assertEquals(1, count("extraction_jobs"));
+    }
+
+    @Test
+    void testEntities_ShouldMatchMigratedSchema() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        LocalContainerEntityManagerFactoryBean factory = PostgresTestDatabase.entityManagerFactory(dataSource);
+
+        assertDoesNotThrow(factory::afterPropertiesSet);
+        factory.destroy();
+    }
+
+    private UUID insertLegacyStack(String receivedAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO stacks (id, received_at, from_address, to_address, subject, status) "
+                + "VALUES (?, ?::timestamp, 'sender@example.com', 'invoices@example.com', 'Invoice', 'PROCESSED')",
+            id, receivedAt);
+        return id;
+    }
+
+    private UUID insertLegacyDocument(UUID stack) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO documents (id, stack_id, type, content_location, llm_classification, extraction_status) "
+                + "VALUES (?, ?, 'EMAIL_BODY', 'body.txt', 'INVOICE', 'PROCESSED')",
+            id, stack);
+        return id;
+    }
+
+    private UUID insertStack(Instant receivedAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO stacks (id, received_at, from_address, to_address, subject, status) "
+                + "VALUES (?, ?, 'sender@example.com', 'invoices@example.com', 'Invoice', 'NEW')",
+            id, receivedAt.atOffset(java.time.ZoneOffset.UTC));
+        return id;
+    }
+
+    private UUID insertDocument(UUID stack) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+            INSERT INTO documents (id, stack_id, received_at, type, content_location, llm_classification, extraction_status)
+            SELECT ?, id, received_at, 'EMAIL_BODY', 'body.txt', 'UNKNOWN', 'NEW' FROM stacks WHERE id = ?
+            """, id, stack);
+        return id;
+    }
+
+    private UUID insertExtraction(UUID document) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO invoice_extractions (id, document_id, invoice_number, invoice_date, supplier_name, total_amount, currency) "
+                + "VALUES (?, ?, 'INV-1', DATE '2024-03-31', 'Supplier', 10.00, 'EUR')",
+            id, document);
+        return id;
+    }
+
+    private UUID insertJob(UUID document, UUID stack) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO extraction_jobs (id, document_id, stack_id, status, attempts, available_at, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'PENDING', 0, NOW(), NOW(), NOW())",
+            id, document, stack);
+        return id;
+    }
+
+    private String partitionOf(String table, UUID id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM " + table + " WHERE id = ?", String.class, id);
+    }
+
+    private Instant receivedAt(String table, UUID id) {
+        return jdbcTemplate.queryForObject("SELECT received_at FROM " + table + " WHERE id = ?", OffsetDateTime.class, id)
+            .toInstant();
+    }
+
+    private boolean exists(String table, UUID id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + table + " WHERE id = ?)", Boolean.class, id));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
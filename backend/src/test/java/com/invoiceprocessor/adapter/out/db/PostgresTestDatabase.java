@@ -0,0 +1,93 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A real PostgreSQL server for tests of the migrations and of native SQL,
+ * started once per test run. Every call of {@link #create()} hands out a new,
+ * empty database on it.
+ */
+final class PostgresTestDatabase {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+    private static EmbeddedPostgres server;
+
+    private PostgresTestDatabase() {
+    }
+
+    static DataSource create() {
+        EmbeddedPostgres postgres = server();
+        String name = "test_" + databases.incrementAndGet();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create test database: " + e.getMessage(), e);
+        }
+        return postgres.getDatabase("postgres", name);
+    }
+
+    /**
+     * Migrates the database up to the given version, or to the latest one if
+     * null. The session time zone stands in for the application's JVM zone,
+     * which the JDBC driver sets as the session time zone in production.
+     */
+    static void migrate(DataSource dataSource, String target, String sessionTimeZone) {
+        Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration")
+            .target(target != null ? MigrationVersion.fromVersion(target) : MigrationVersion.LATEST)
+            .initSql("SET TIME ZONE '" + sessionTimeZone + "'")
+            .load()
+            .migrate();
+    }
+
+    /**
+     * Builds the JPA entities of this package on the database the way the
+     * application does, validating them against the migrated schema. Call
+     * {@code afterPropertiesSet()} to start it.
+     */
+    static LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(PostgresTestDatabase.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+            "hibernate.hbm2ddl.auto", "validate",
+            "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        return factory;
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (server == null) {
+            try {
+                server = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start embedded PostgreSQL", e);
+            }
+            EmbeddedPostgres started = server;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    started.close();
+                } catch (IOException ignored) {
+                    // The server goes away with the JVM anyway.
+                }
+            }));
+        }
+        return server;
+    }
+}
@@ -0,0 +1,110 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.StackArchiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+class StackArchiveRepositoryImplTest {
+
+    private final DataSource dataSource = PostgresTestDatabase.create();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+    private StackArchiveRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        ProxyFactory proxyFactory = new ProxyFactory(new StackArchiveRepositoryImpl(jdbcTemplate));
+        proxyFactory.addAdvice(new TransactionInterceptor(
+            new DataSourceTransactionManager(dataSource), new AnnotationTransactionAttributeSource()));
+        repository = (StackArchiveRepository) proxyFactory.getProxy();
+    }
+
+    @Test
+    void testCreatePartitionsThrough_ShouldAttachMonthsWithUniqueIds() {
+        YearMonth month = currentMonth.plusMonths(14);
+
+        repository.createPartitionsThrough(month);
+
+        assertTrue(exists("stacks_p" + suffix(month)));
+        assertTrue(exists("documents_p" + suffix(month)));
+        assertTrue(exists("stacks_p" + suffix(month) + "_id_key"));
+        UUID stack = insertStack(month);
+        assertEquals("stacks_p" + suffix(month), jdbcTemplate.queryForObject(
+            "SELECT tableoid::regclass::text FROM stacks WHERE id = ?", String.class, stack));
+        assertThrows(DataIntegrityViolationException.class, () -> insertStack(stack, month, 2));
+    }
+
+    @Test
+    void testCreatePartitionsThrough_RowsInDefaultPartition_ShouldFailAndStillCreateOtherMonths() {
+        YearMonth straysMonth = currentMonth.plusMonths(14);
+        YearMonth laterMonth = currentMonth.plusMonths(15);
+        insertStack(straysMonth);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> repository.createPartitionsThrough(laterMonth));
+
+        assertTrue(e.getMessage().contains(straysMonth.toString()));
+        assertFalse(exists("stacks_p" + suffix(straysMonth)));
+        assertTrue(exists("stacks_p" + suffix(currentMonth.plusMonths(13))));
+        assertTrue(exists("stacks_p" + suffix(laterMonth)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stacks_pdefault", Integer.class));
+    }
+
+    @Test
+    void testDetachMonth_ShouldKeepExtractionsAndRemoveMonthFromLiveTables() {
+        YearMonth month = currentMonth.plusMonths(1);
+        UUID stack = insertStack(month);
+        UUID document = UUID.randomUUID();
+        jdbcTemplate.update("""
+            INSERT INTO documents (id, stack_id, received_at, type, content_location, llm_classification, extraction_status)
+            SELECT ?, id, received_at, 'EMAIL_BODY', 'body.txt', 'INVOICE', 'PROCESSED' FROM stacks WHERE id = ?
+            """, document, stack);
+        jdbcTemplate.update(
+            "INSERT INTO invoice_extractions (id, document_id, invoice_number, invoice_date, supplier_name, total_amount, currency) "
+                + "VALUES (?, ?, 'INV-1', CURRENT_DATE, 'Supplier', 10.00, 'EUR')",
+            UUID.randomUUID(), document);
+
+        repository.detachMonth(month, false);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stacks", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoice_extractions", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM invoice_extractions_p" + suffix(month), Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM documents_p" + suffix(month), Integer.class));
+        assertFalse(repository.findAttachedMonthsBefore(month.plusMonths(1)).contains(month));
+    }
+
+    private UUID insertStack(YearMonth month) {
+        return insertStack(UUID.randomUUID(), month, 1);
+    }
+
+    private UUID insertStack(UUID id, YearMonth month, int day) {
+        jdbcTemplate.update(
+            "INSERT INTO stacks (id, received_at, from_address, to_address, subject, status) "
+                + "VALUES (?, ?, 'sender@example.com', 'invoices@example.com', 'Invoice', 'PROCESSED')",
+            id, OffsetDateTime.of(month.atDay(day).atStartOfDay(), ZoneOffset.UTC));
+        return id;
+    }
+
+    private boolean exists(String relation) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, relation));
+    }
+
+    private static String suffix(YearMonth month) {
+        return String.format("%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,100 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+class StackJpaRepositoryTest {
+
+    private final DataSource dataSource = PostgresTestDatabase.create();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final LocalContainerEntityManagerFactoryBean entityManagerFactory =
+        PostgresTestDatabase.entityManagerFactory(dataSource);
+    private EntityManager entityManager;
+    private StackJpaRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        PostgresTestDatabase.migrate(dataSource, null, "UTC");
+        entityManagerFactory.afterPropertiesSet();
+        entityManager = entityManagerFactory.getObject().createEntityManager();
+        repository = new JpaRepositoryFactory(entityManager).getRepository(StackJpaRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManager.close();
+        entityManagerFactory.destroy();
+    }
+
+    @Test
+    void testFindAfter_ShouldPageThroughTiesInReceivedAtAndIdOrder() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<UUID> expected = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Three stacks share each timestamp, so pages end in the middle of ties.
+            Instant receivedAt = now.minusSeconds(i / 3);
+            UUID id = UUID.randomUUID();
+            rows.add(new Object[] {id, receivedAt});
+            insertStack(id, receivedAt);
+        }
+        rows.sort(Comparator.<Object[], Instant>comparing(row -> (Instant) row[1])
+            // Postgres orders uuids by their bytes, like their strings and unlike UUID.compareTo.
+            .thenComparing(row -> row[0].toString()).reversed());
+        rows.forEach(row -> expected.add((UUID) row[0]));
+
+        List<UUID> paged = new ArrayList<>();
+        Instant receivedAt = now.plusSeconds(1);
+        UUID id = new UUID(0, 0);
+        List<StackJpaEntity> page;
+        while (!(page = repository.findAfter(receivedAt, id, 2)).isEmpty()) {
+            assertTrue(page.size() <= 2);
+            page.forEach(stack -> paged.add(stack.getId()));
+            StackJpaEntity last = page.get(page.size() - 1);
+            receivedAt = last.getReceivedAt();
+            id = last.getId();
+        }
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void testFindAfter_ShouldSeekOnReceivedAtIdIndex() {
+        jdbcTemplate.execute("SET enable_seqscan = off");
+        List<String> plan = jdbcTemplate.queryForList("""
+            EXPLAIN SELECT * FROM stacks
+            WHERE (received_at, id) < (TIMESTAMPTZ '2026-01-15 12:00:00+00', '7f000000-0000-0000-0000-000000000000'::uuid)
+            ORDER BY received_at DESC, id DESC
+            LIMIT 20
+            """, String.class);
+
+        // The whole row comparison is an index condition, not a filter on the scanned rows.
+        assertTrue(plan.stream().anyMatch(line -> line.contains("Index Cond: (ROW(received_at, id) < ROW(")),
+            String.join("\n", plan));
+        // Partitions are merged in index order; no separate sort of the rows.
+        assertTrue(plan.stream().map(String::trim).noneMatch(line -> line.matches("(->\\s+)?Sort\\s+\\(.*")),
+            String.join("\n", plan));
+    }
+
+    private void insertStack(UUID id, Instant receivedAt) {
+        jdbcTemplate.update(
+            "INSERT INTO stacks (id, received_at, from_address, to_address, subject, status) "
+                + "VALUES (?, ?, 'sender@example.com', 'invoices@example.com', 'Invoice', 'PROCESSED')",
+            id, receivedAt.atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,152 @@
+package com.invoiceprocessor.adapter.out.llm;
+
+import com.invoiceprocessor.application.port.out.ExtractionResultCache;
+import com.invoiceprocessor.application.port.out.LlmRateLimiter;
+import com.invoiceprocessor.application.port.out.LlmUnavailableException;
+import com.invoiceprocessor.application.port.out.StorageService;
+import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.DocumentType;
+import com.invoiceprocessor.domain.entity.LlmClassification;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+class OpenAiLlmInvoiceExtractorTest {
+
+    private final StorageService storageService = mock(StorageService.class);
+    private final ExtractionResultCache resultCache = mock(ExtractionResultCache.class);
+    private final LlmRateLimiter rateLimiter = mock(LlmRateLimiter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OpenAiLlmInvoiceExtractor extractor = new OpenAiLlmInvoiceExtractor(
+        new RestTemplateBuilder(), storageService, resultCache, rateLimiter, meterRegistry,
+        true, 2000, 3, 1, 1, 5, 60, "test-key", "test-model", "http://localhost/unused");
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void testExtract_RateLimitedAfterLimiterRetries_ShouldStayQueuedWithoutRetryingOrTrippingBreaker() throws Exception {
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any()))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(LlmUnavailableException.class, () -> extractor.extract(document));
+        }
+
+        verify(rateLimiter, times(3)).execute(anyString(), any());
+        assertEquals(0.0, meterRegistry.get("llm.extraction.retries").counter().count());
+        assertEquals(CircuitBreaker.State.CLOSED.ordinal(), meterRegistry.get("llm.extraction.circuit.state").gauge().value());
+    }
+
+    @Test
+    void testExtract_Interrupted_ShouldStayQueuedAndKeepInterruptFlag() throws Exception {
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any())).thenThrow(new InterruptedException("shutting down"));
+
+        assertThrows(LlmUnavailableException.class, () -> extractor.extract(document));
+
+        assertTrue(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void testExtract_ServerErrors_ShouldRetryAndReportUnavailable() throws Exception {
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any()))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.REQUEST_TIMEOUT, "Request Timeout", null, null, null));
+
+        assertThrows(LlmUnavailableException.class, () -> extractor.extract(document));
+
+        verify(rateLimiter, times(3)).execute(anyString(), any());
+    }
+
+    @Test
+    void testExtract_HalfOpenTrialRateLimited_ShouldAdmitNextCall() throws Exception {
+        // Opens after one failure and allows a trial right away.
+        OpenAiLlmInvoiceExtractor quickBreaker = new OpenAiLlmInvoiceExtractor(
+            new RestTemplateBuilder(), storageService, resultCache, rateLimiter, new SimpleMeterRegistry(),
+            true, 2000, 1, 1, 1, 1, 0, "test-key", "test-model", "http://localhost/unused");
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any()))
+            .thenThrow(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(LlmUnavailableException.class, () -> quickBreaker.extract(document));
+        }
+
+        // Opening failure, rate-limited trial, and the next trial, which a stuck breaker would reject unsent.
+        verify(rateLimiter, times(3)).execute(anyString(), any());
+    }
+
+    @Test
+    void testExtract_EmptyResponse_ShouldNotCacheFallback() throws Exception {
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any())).thenReturn(response(""));
+
+        InvoiceProcessingService.LlmExtractionResult result = extractor.extract(document);
+
+        assertEquals(LlmClassification.NOT_INVOICE, result.classification());
+        verify(resultCache, never()).put(any(), any());
+    }
+
+    @Test
+    void testExtract_InvoiceWithoutDate_ShouldCacheWithoutDateAndReturnToday() throws Exception {
+        Document document = documentWithContent();
+        when(rateLimiter.execute(anyString(), any()))
+            .thenReturn(response("{\\\"isInvoice\\\": true, \\\"amount\\\": 10, \\\"currency\\\": \\\"EUR\\\"}"));
+
+        InvoiceProcessingService.LlmExtractionResult result = extractor.extract(document);
+
+        ArgumentCaptor<InvoiceProcessingService.LlmExtractionResult> cached =
+            ArgumentCaptor.forClass(InvoiceProcessingService.LlmExtractionResult.class);
+        verify(resultCache).put(any(), cached.capture());
+        assertEquals(LlmClassification.INVOICE, cached.getValue().classification());
+        assertNull(cached.getValue().invoiceDate());
+        assertEquals(LocalDate.now(), result.invoiceDate());
+    }
+
+    @Test
+    void testExtract_CachedInvoiceWithoutDate_ShouldReturnToday() {
+        Document document = documentWithContent();
+        when(resultCache.get(any())).thenReturn(Optional.of(new InvoiceProcessingService.LlmExtractionResult(
+            LlmClassification.INVOICE, null, null, "Supplier", null, "EUR")));
+
+        InvoiceProcessingService.LlmExtractionResult result = extractor.extract(document);
+
+        assertEquals(LocalDate.now(), result.invoiceDate());
+        assertEquals("Supplier", result.supplierName());
+    }
+
+    private static String response(String content) {
+        return "{\"choices\": [{\"message\": {\"content\": \"" + content + "\"}}]}";
+    }
+
+    private Document documentWithContent() {
+        Document document = new Document(UUID.randomUUID(), DocumentType.EMAIL_BODY, null, "stacks/body.txt");
+        document.setId(UUID.randomUUID());
+        when(storageService.downloadFile("stacks/body.txt"))
+            .thenAnswer(invocation -> new ByteArrayInputStream("Invoice 42, total 10 EUR".getBytes(StandardCharsets.UTF_8)));
+        when(resultCache.get(any())).thenReturn(Optional.empty());
+        return document;
+    }
+}
@@ -7,6 +7,8 @@ import com.invoiceprocessor.domain.service.InvoiceProcessingService;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 class StubLlmInvoiceExtractorTest {
@@ -75,4 +77,16 @@ class StubLlmInvoiceExtractorTest {
 
         assertEquals(LlmClassification.INVOICE, result.classification());
     }
+
+    @Test
+    void testExtractBatch_ShouldReturnResultPerDocument() {
+        Document invoice = new Document(UUID.randomUUID(), DocumentType.EMAIL_BODY, "invoice.txt", "dummy-location");
+        Document other = new Document(UUID.randomUUID(), DocumentType.EMAIL_BODY, "hello.txt", "dummy-location");
+
+        Map<UUID, InvoiceProcessingService.LlmExtractionResult> results = extractor.extractBatch(List.of(invoice, other));
+
+        assertEquals(2, results.size());
+        assertEquals(LlmClassification.INVOICE, results.get(invoice.getId()).classification());
+        assertEquals(LlmClassification.NOT_INVOICE, results.get(other.getId()).classification());
+    }
 }
@@ -0,0 +1,59 @@
+package com.invoiceprocessor.adapter.out.llm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TokenBucketLlmRateLimiterTest {
+
+    private final TokenBucketLlmRateLimiter limiter =
+        new TokenBucketLlmRateLimiter(60_000, 6_000_000, 6, 2, 3, 10, 1);
+
+    @Test
+    void testExecute_RateLimitedEveryTime_ShouldRetryThenRethrowLast429Unchanged() {
+        AtomicInteger calls = new AtomicInteger();
+        HttpClientErrorException tooManyRequests =
+            HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+
+        HttpClientErrorException thrown = assertThrows(HttpClientErrorException.class, () ->
+            limiter.execute("body", () -> {
+                calls.incrementAndGet();
+                throw tooManyRequests;
+            }));
+
+        assertSame(tooManyRequests, thrown);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testExecute_RateLimitedOnce_ShouldReturnResultOfRetry() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = limiter.execute("body", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testExecute_ServerError_ShouldPassThroughWithoutRetry() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () ->
+            limiter.execute("body", () -> {
+                calls.incrementAndGet();
+                throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null);
+            }));
+
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,50 @@
+package com.invoiceprocessor.adapter.out.llm;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testReserve_WithinCapacity_ShouldNotWait() {
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.reserve(1, 0));
+        }
+    }
+
+    @Test
+    void testReserve_BeyondCapacity_ShouldWaitForRefill() {
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+        bucket.reserve(10, 0);
+
+        // 60 per minute refills one token per second.
+        assertEquals(SECOND, bucket.reserve(1, 0));
+        assertEquals(2 * SECOND, bucket.reserve(1, 0));
+    }
+
+    @Test
+    void testReserve_AfterIdle_ShouldRefillUpToCapacityOnly() {
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+        bucket.reserve(10, 0);
+
+        assertEquals(10, bucket.available(60 * SECOND), 0.0001);
+    }
+
+    @Test
+    void testDrain_ShouldForceNextReservationToWait() {
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+
+        bucket.drain(0);
+
+        assertEquals(SECOND, bucket.reserve(1, 0));
+    }
+
+    @Test
+    void testConstructor_NonPositiveRate_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10, 0));
+    }
+}
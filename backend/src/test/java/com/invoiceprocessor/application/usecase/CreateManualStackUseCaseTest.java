@@ -0,0 +1,76 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.DocumentRepository;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
+import com.invoiceprocessor.application.port.out.StackRepository;
+import com.invoiceprocessor.application.port.out.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class CreateManualStackUseCaseTest {
+
+    private final StackRepository stackRepository = mock(StackRepository.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final ExtractionJobRepository extractionJobRepository = mock(ExtractionJobRepository.class);
+    private final StorageService storageService = mock(StorageService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CreateManualStackUseCase useCase = new CreateManualStackUseCase(
+        stackRepository, documentRepository, extractionJobRepository, storageService, transactionManager);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(storageService.uploadFile(anyString(), any(InputStream.class), anyString()))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        when(storageService.uploadFile(anyString(), any(InputStream.class), anyString(), anyLong()))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testExecuteBatch_TransactionFails_ShouldReportFailureAndDeleteUploadedContent() {
+        when(stackRepository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+
+        List<CreateManualStackUseCase.BatchItemResult> results = useCase.executeBatch(List.of(
+            request("first", "invoice.pdf"), request("second", "receipt.pdf")));
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> result.stackId() == null && "database down".equals(result.error())));
+        // Body and attachment of each email.
+        verify(storageService, times(4)).deleteFile(anyString());
+        verify(storageService).deleteFile(argThat(key -> key.endsWith("invoice.pdf")));
+        verify(storageService).deleteFile(argThat(key -> key.endsWith("receipt.pdf")));
+    }
+
+    @Test
+    void testExecute_TransactionFails_ShouldDeleteUploadedContentAndRethrow() {
+        when(stackRepository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> useCase.execute(request("only", "invoice.pdf")));
+
+        verify(storageService, times(2)).deleteFile(anyString());
+    }
+
+    @Test
+    void testExecuteBatch_TransactionSucceeds_ShouldKeepUploadedContent() {
+        List<CreateManualStackUseCase.BatchItemResult> results = useCase.executeBatch(List.of(request("first", "invoice.pdf")));
+
+        assertNotNull(results.get(0).stackId());
+        verify(storageService, never()).deleteFile(anyString());
+    }
+
+    private static CreateManualStackUseCase.CreateManualStackRequest request(String subject, String filename) {
+        return new CreateManualStackUseCase.CreateManualStackRequest(
+            "sender@example.com", "invoices@example.com", subject, "Body of " + subject,
+            List.of(new CreateManualStackUseCase.AttachmentContent(
+                filename, "application/pdf", "%PDF".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,78 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.DocumentRepository;
+import com.invoiceprocessor.application.port.out.InvoiceExtractionRepository;
+import com.invoiceprocessor.application.port.out.LlmInvoiceExtractor;
+import com.invoiceprocessor.application.port.out.LlmUnavailableException;
+import com.invoiceprocessor.application.port.out.StackRepository;
+import com.invoiceprocessor.domain.entity.Document;
+import com.invoiceprocessor.domain.entity.DocumentType;
+import com.invoiceprocessor.domain.entity.ExtractionStatus;
+import com.invoiceprocessor.domain.entity.LlmClassification;
+import com.invoiceprocessor.domain.service.InvoiceProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+class ExtractDocumentUseCaseTest {
+
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final InvoiceExtractionRepository extractionRepository = mock(InvoiceExtractionRepository.class);
+    private final LlmInvoiceExtractor llmExtractor = mock(LlmInvoiceExtractor.class);
+    private final InvoiceProcessingService processingService = mock(InvoiceProcessingService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ExtractDocumentUseCase useCase = new ExtractDocumentUseCase(
+        documentRepository, extractionRepository, mock(StackRepository.class), llmExtractor, processingService,
+        transactionManager);
+
+    private final Document batched = document();
+    private final Document leftOut = document();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(documentRepository.findByIds(any())).thenReturn(List.of(batched, leftOut));
+    }
+
+    @Test
+    void testExecuteBatch_FallbackUnavailable_ShouldResetWholeBatchAndRethrow() {
+        when(llmExtractor.extractBatch(any())).thenReturn(Map.of(batched.getId(), notInvoice()));
+        when(llmExtractor.extract(leftOut)).thenThrow(new LlmUnavailableException("circuit open"));
+
+        assertThrows(LlmUnavailableException.class,
+            () -> useCase.executeBatch(List.of(batched.getId(), leftOut.getId())));
+
+        verify(documentRepository).updateExtractionStatus(List.of(batched.getId(), leftOut.getId()), ExtractionStatus.NEW);
+        verifyNoInteractions(processingService, extractionRepository);
+    }
+
+    @Test
+    void testExecuteBatch_BatchUnavailable_ShouldResetWholeBatchAndRethrow() {
+        when(llmExtractor.extractBatch(any())).thenThrow(new LlmUnavailableException("rate limited"));
+
+        assertThrows(LlmUnavailableException.class,
+            () -> useCase.executeBatch(List.of(batched.getId(), leftOut.getId())));
+
+        verify(documentRepository).updateExtractionStatus(List.of(batched.getId(), leftOut.getId()), ExtractionStatus.NEW);
+        verify(llmExtractor, never()).extract(any());
+    }
+
+    private static Document document() {
+        Document document = new Document(UUID.randomUUID(), DocumentType.EMAIL_BODY, "email-body.txt", "stacks/body.txt");
+        document.setId(UUID.randomUUID());
+        return document;
+    }
+
+    private static InvoiceProcessingService.LlmExtractionResult notInvoice() {
+        return new InvoiceProcessingService.LlmExtractionResult(
+            LlmClassification.NOT_INVOICE, null, null, null, null, null);
+    }
+}
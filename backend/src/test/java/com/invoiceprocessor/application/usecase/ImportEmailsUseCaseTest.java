@@ -0,0 +1,81 @@
+package com.invoiceprocessor.application.usecase;
+
+import com.invoiceprocessor.application.port.out.DocumentRepository;
+import com.invoiceprocessor.application.port.out.EmailFetcher;
+import com.invoiceprocessor.application.port.out.ExtractionJobRepository;
+import com.invoiceprocessor.application.port.out.StackRepository;
+import com.invoiceprocessor.application.port.out.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class ImportEmailsUseCaseTest {
+
+    private final EmailFetcher emailFetcher = mock(EmailFetcher.class);
+    private final StackRepository stackRepository = mock(StackRepository.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final ExtractionJobRepository extractionJobRepository = mock(ExtractionJobRepository.class);
+    private final StorageService storageService = mock(StorageService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ImportEmailsUseCase useCase = new ImportEmailsUseCase(
+        emailFetcher, stackRepository, documentRepository, extractionJobRepository, storageService,
+        transactionManager, "Invoices");
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(storageService.uploadFile(anyString(), any(InputStream.class), anyString()))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testExecute_ShouldUploadBeforeTransactionAndMarkReadAfterCommit() {
+        when(emailFetcher.fetchUnreadEmails("Invoices")).thenReturn(List.of(email("m1")));
+
+        ImportEmailsUseCase.ImportEmailsResponse response = useCase.execute();
+
+        assertEquals(1, response.stacksCreated());
+        assertEquals(2, response.documentsCreated());
+        InOrder inOrder = inOrder(emailFetcher, storageService, transactionManager, stackRepository);
+        inOrder.verify(emailFetcher).fetchUnreadEmails("Invoices");
+        inOrder.verify(storageService, times(2)).uploadFile(anyString(), any(InputStream.class), anyString());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(stackRepository).save(any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(emailFetcher).markAsRead("m1", "Invoices");
+    }
+
+    @Test
+    void testExecute_TransactionFails_ShouldLeaveEmailUnreadAndDeleteUploadedContent() {
+        when(emailFetcher.fetchUnreadEmails("Invoices")).thenReturn(List.of(email("m1"), email("m2")));
+        when(stackRepository.save(any()))
+            .thenThrow(new IllegalStateException("database down"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportEmailsUseCase.ImportEmailsResponse response = useCase.execute();
+
+        assertEquals(1, response.errors());
+        assertEquals(1, response.stacksCreated());
+        verify(transactionManager).rollback(any());
+        verify(storageService, times(2)).deleteFile(anyString());
+        verify(emailFetcher, never()).markAsRead(eq("m1"), anyString());
+        verify(emailFetcher).markAsRead("m2", "Invoices");
+    }
+
+    private static EmailFetcher.EmailMessage email(String messageId) {
+        return new EmailFetcher.EmailMessage(
+            messageId, "sender@example.com", "invoices@example.com", "Invoice " + messageId, "Body of " + messageId,
+            List.of(new EmailFetcher.EmailAttachment(
+                "invoice.pdf", "application/pdf", new ByteArrayInputStream("%PDF".getBytes(StandardCharsets.UTF_8)))));
+    }
+}
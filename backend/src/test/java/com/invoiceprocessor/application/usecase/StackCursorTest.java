@@ -0,0 +1,33 @@
+package com.invoiceprocessor.application.usecase;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+class StackCursorTest {
+
+    @Test
+    void testEncodeDecode_ShouldRoundTrip() {
+        StackCursor cursor = new StackCursor(Instant.parse("2024-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        StackCursor decoded = StackCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void testEncode_ShouldBeUrlSafe() {
+        String token = new StackCursor(Instant.now(), UUID.randomUUID()).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testDecode_InvalidToken_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> StackCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> StackCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> StackCursor.decode("YWJjfGRlZg"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.invoiceprocessor.domain.entity;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+class ExtractionJobTest {
+
+    @Test
+    void testNewJob_ShouldBePendingAndAvailable() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+
+        assertEquals(ExtractionJobStatus.PENDING, job.getStatus());
+        assertEquals(0, job.getAttempts());
+        assertFalse(job.getAvailableAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void testClaim_ShouldLockAndCountAttempt() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+        Instant now = Instant.now();
+
+        job.claim("worker-1", now);
+
+        assertEquals(ExtractionJobStatus.RUNNING, job.getStatus());
+        assertEquals("worker-1", job.getLockedBy());
+        assertEquals(now, job.getLockedAt());
+        assertEquals(1, job.getAttempts());
+    }
+
+    @Test
+    void testRetryAt_ShouldReleaseLockAndDelay() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+        job.claim("worker-1", Instant.now());
+        Instant later = Instant.now().plusSeconds(30);
+
+        job.retryAt(later, "timeout");
+
+        assertEquals(ExtractionJobStatus.PENDING, job.getStatus());
+        assertNull(job.getLockedBy());
+        assertNull(job.getLockedAt());
+        assertEquals(later, job.getAvailableAt());
+        assertEquals("timeout", job.getLastError());
+        assertEquals(1, job.getAttempts());
+    }
+
+    @Test
+    void testPostpone_ShouldNotCountAttempt() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+        job.claim("worker-1", Instant.now());
+        Instant later = Instant.now().plusSeconds(30);
+
+        job.postpone(later, "circuit open");
+
+        assertEquals(ExtractionJobStatus.PENDING, job.getStatus());
+        assertEquals(later, job.getAvailableAt());
+        assertEquals(0, job.getAttempts());
+    }
+
+    @Test
+    void testFail_ShouldBeFailed() {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID(), UUID.randomUUID());
+        job.claim("worker-1", Instant.now());
+
+        job.fail("gave up");
+
+        assertEquals(ExtractionJobStatus.FAILED, job.getStatus());
+        assertNull(job.getLockedBy());
+        assertEquals("gave up", job.getLastError());
+    }
+}
@@ -57,4 +57,30 @@ class StackTest {
 
         assertEquals(StackStatus.PROCESSING, stack.getStatus());
     }
+
+    @Test
+    void testUpdateStatusFromDocuments_ShouldRecomputeCounters() {
+        Stack stack = new Stack("from@test.com", "to@test.com", "Test Subject");
+        stack.setDocumentCount(7);
+        stack.setInvoiceCount(5);
+        stack.setErrorCount(3);
+
+        Document doc1 = new Document();
+        doc1.setExtractionStatus(ExtractionStatus.PROCESSED);
+        stack.addDocument(doc1);
+
+        Document doc2 = new Document();
+        doc2.setExtractionStatus(ExtractionStatus.ERROR);
+        stack.addDocument(doc2);
+
+        Document doc3 = new Document();
+        doc3.setExtractionStatus(ExtractionStatus.NOT_APPLICABLE);
+        stack.addDocument(doc3);
+
+        stack.updateStatusFromDocuments();
+
+        assertEquals(3, stack.getDocumentCount());
+        assertEquals(1, stack.getInvoiceCount());
+        assertEquals(1, stack.getErrorCount());
+    }
 }
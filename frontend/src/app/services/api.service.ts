@@ -10,6 +10,7 @@ export interface StackSummary {
   status: string;
   documentCount: number;
   invoiceCount: number;
+  errorCount: number;
 }
 
 export interface StackListResponse {
@@ -0,0 +1,63 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository.MailboxCheckpoint;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "mailbox_checkpoints")
+@IdClass(MailboxCheckpointJpaEntity.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class MailboxCheckpointJpaEntity {
+
+    @Id
+    @Column(name = "endpoint_id", columnDefinition = "UUID")
+    private UUID endpointId;
+
+    @Id
+    @Column(nullable = false)
+    private String folder;
+
+    @Column(name = "uid_validity", nullable = false)
+    private long uidValidity;
+
+    @Column(name = "last_seen_uid", nullable = false)
+    private long lastSeenUid;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public static MailboxCheckpointJpaEntity fromDomain(MailboxCheckpoint checkpoint) {
+        MailboxCheckpointJpaEntity entity = new MailboxCheckpointJpaEntity();
+        entity.setEndpointId(checkpoint.endpointId());
+        entity.setFolder(checkpoint.folder());
+        entity.setUidValidity(checkpoint.uidValidity());
+        entity.setLastSeenUid(checkpoint.lastSeenUid());
+        entity.setUpdatedAt(Instant.now());
+        return entity;
+    }
+
+    public MailboxCheckpoint toDomain() {
+        return new MailboxCheckpoint(this.endpointId, this.folder, this.uidValidity, this.lastSeenUid);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private UUID endpointId;
+        private String folder;
+    }
+}
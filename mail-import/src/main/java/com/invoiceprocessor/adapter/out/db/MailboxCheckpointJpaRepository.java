@@ -0,0 +1,6 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailboxCheckpointJpaRepository extends JpaRepository<MailboxCheckpointJpaEntity, MailboxCheckpointJpaEntity.Key> {
+}
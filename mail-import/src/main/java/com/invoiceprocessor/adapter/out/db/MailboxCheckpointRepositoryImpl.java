@@ -0,0 +1,32 @@
+package com.invoiceprocessor.adapter.out.db;
+
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+public class MailboxCheckpointRepositoryImpl implements MailboxCheckpointRepository {
+
+    private final MailboxCheckpointJpaRepository jpaRepository;
+
+    public MailboxCheckpointRepositoryImpl(MailboxCheckpointJpaRepository jpaRepository) {
+        this.jpaRepository = jpaRepository;
+    }
+
+    @Override
+    public Optional<MailboxCheckpoint> find(UUID endpointId, String folder) {
+        return jpaRepository.findById(new MailboxCheckpointJpaEntity.Key(endpointId, folder))
+            .map(MailboxCheckpointJpaEntity::toDomain);
+    }
+
+    // The scheduled import runs in a read-only transaction, which would never flush this write.
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void save(MailboxCheckpoint checkpoint) {
+        jpaRepository.save(MailboxCheckpointJpaEntity.fromDomain(checkpoint));
+    }
+}
@@ -0,0 +1,150 @@
+package com.invoiceprocessor.adapter.out.email;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Temp-file area that attachment content is copied to while the IMAP folder
+ * is open, so fetched mail holds file handles instead of heap.
+ *
+ * The area is bounded by {@code email.import.spool.max-bytes}. Once that is
+ * reached the fetcher stops taking further messages, which stay behind the
+ * folder's checkpoint until a later run. A single message is always admitted
+ * into an empty spool, so the limit can be exceeded by at most one message.
+ */
+@Component
+public class AttachmentSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentSpool.class);
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public AttachmentSpool(
+            @Value("${email.import.spool.directory:${java.io.tmpdir}/mail-import-spool}") String directory,
+            @Value("${email.import.spool.max-bytes:1073741824}") long maxBytes) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        // Files left behind by a previous process belong to mail that was never acknowledged and will be fetched again.
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            leftovers.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete leftover spool file {}: {}", file, e.getMessage());
+                }
+            });
+        }
+    }
+
+    boolean hasRoom() {
+        long used = usedBytes.get();
+        return used == 0 || used < maxBytes;
+    }
+
+    /**
+     * Copies the content to a new spool file. Errors reading the content are
+     * thrown as they are; errors writing the spool itself, such as a full
+     * disk, as {@link SpoolException}.
+     */
+    SpooledAttachment spool(InputStream content) throws IOException {
+        Path file;
+        try {
+            file = Files.createTempFile(directory, "attachment-", ".bin");
+        } catch (IOException e) {
+            content.close();
+            throw new SpoolException("Failed to create spool file in " + directory, e);
+        }
+        try (InputStream in = content; OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            long size = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                try {
+                    out.write(buffer, 0, read);
+                } catch (IOException e) {
+                    throw new SpoolException("Failed to write spool file " + file, e);
+                }
+                size += read;
+            }
+            usedBytes.addAndGet(size);
+            return new SpooledAttachment(file, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the file behind spooled content; other content is ignored.
+     * Safe to call more than once.
+     */
+    void release(InputStreamSource content) {
+        if (!(content instanceof SpooledAttachment attachment) || !attachment.released.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(attachment.file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spool file {}: {}", attachment.file, e.getMessage());
+        }
+        usedBytes.addAndGet(-attachment.size);
+    }
+
+    /**
+     * The spool itself failed, not the mail being spooled.
+     */
+    static final class SpoolException extends IOException {
+
+        private SpoolException(String message, IOException cause) {
+            super(message, cause);
+        }
+    }
+
+    static final class SpooledAttachment implements InputStreamSource {
+
+        private final Path file;
+        private final long size;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private SpooledAttachment(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        long size() {
+            return size;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            try {
+                return Files.newInputStream(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Spooled attachment is no longer available: " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.invoiceprocessor.adapter.out.email;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.FolderNotFoundException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed pool of authenticated IMAP stores, one key per email source.
+ *
+ * A pooled store keeps the last folder it opened, so repeated fetches and
+ * flag updates on the same folder skip both the login and the SELECT.
+ * Stores are checked with the server before they are handed out, closed
+ * after {@code email.import.pool.idle-timeout-ms} without use, and at most
+ * {@code email.import.pool.max-per-endpoint} exist per key. When the
+ * connection settings behind a key change, for example after new
+ * credentials were saved in the admin UI, its stores are closed and new ones
+ * are opened with the new settings.
+ */
+@Component
+public class ImapConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImapConnectionPool.class);
+
+    private final Map<String, EndpointPool> pools = new ConcurrentHashMap<>();
+    private final int maxPerEndpoint;
+    private final Duration idleTimeout;
+    private final Duration borrowTimeout;
+    private final Duration socketTimeout;
+
+    public ImapConnectionPool(
+            @Value("${email.import.pool.max-per-endpoint:2}") int maxPerEndpoint,
+            @Value("${email.import.pool.idle-timeout-ms:300000}") long idleTimeoutMs,
+            @Value("${email.import.pool.borrow-timeout-ms:30000}") long borrowTimeoutMs,
+            @Value("${email.import.pool.socket-timeout-ms:60000}") long socketTimeoutMs) {
+        this.maxPerEndpoint = maxPerEndpoint;
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+        this.borrowTimeout = Duration.ofMillis(borrowTimeoutMs);
+        this.socketTimeout = Duration.ofMillis(socketTimeoutMs);
+    }
+
+    /**
+     * Opens a new, unpooled connection. Used for long-lived connections
+     * such as IDLE that would otherwise hold a pool slot forever. Reads on it
+     * fail after {@code readTimeout} without data, so the caller has to make
+     * the server answer more often than that, for IDLE with a keepalive.
+     */
+    Store connect(ImapEmailFetcher.EmailConfig config, Duration readTimeout) throws MessagingException {
+        return open(config, readTimeout);
+    }
+
+    private Store open(ImapEmailFetcher.EmailConfig config, Duration readTimeout) throws MessagingException {
+        logger.info("Connecting to IMAP server: {}:{} (SSL: {})", config.host(), config.port(), config.useSSL());
+
+        Properties props = new Properties();
+        props.put("mail.store.protocol", "imap");
+        props.put("mail.imap.host", config.host());
+        props.put("mail.imap.port", config.port());
+        if (config.useSSL()) {
+            props.put("mail.imap.ssl.enable", "true");
+            props.put("mail.imap.ssl.trust", config.host());
+        } else {
+            props.put("mail.imap.starttls.enable", "true");
+        }
+        props.put("mail.imap.connectiontimeout", String.valueOf(socketTimeout.toMillis()));
+        // A server that stops answering fails the call instead of blocking its thread forever.
+        props.put("mail.imap.timeout", String.valueOf(readTimeout.toMillis()));
+
+        // Not getDefaultInstance: that one caches the properties of the first endpoint for every later one.
+        Session session = Session.getInstance(props);
+        Store store = session.getStore("imap");
+        logger.debug("Attempting to connect with username: {}", config.username());
+        store.connect(config.host(), config.port(), config.username(), config.password());
+        logger.info("Successfully connected to IMAP server");
+        return store;
+    }
+
+    /**
+     * Hands out a healthy store for the key, waiting up to
+     * {@code email.import.pool.borrow-timeout-ms} when all of its stores are in use.
+     * Close the returned handle to give the store back.
+     */
+    PooledStore borrow(String key, ImapEmailFetcher.EmailConfig config) throws MessagingException {
+        EndpointPool pool = pools.compute(key, (k, existing) -> {
+            if (existing != null && existing.config.equals(config)) {
+                return existing;
+            }
+            if (existing != null) {
+                logger.info("Connection settings of email source {} changed, closing its pooled connections", key);
+                existing.retire();
+            }
+            return new EndpointPool(key, config);
+        });
+
+        try {
+            if (!pool.permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No IMAP connection of email source " + key + " became free within " + borrowTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an IMAP connection of email source " + key, e);
+        }
+
+        try {
+            PooledStore candidate;
+            while ((candidate = pool.idle.pollFirst()) != null) {
+                // isConnected() sends a NOOP, so dead connections are caught here and not mid-fetch.
+                if (candidate.store.isConnected()) {
+                    return candidate;
+                }
+                logger.debug("Discarding broken pooled IMAP connection of email source {}", key);
+                candidate.destroy();
+            }
+            return new PooledStore(pool, open(config, socketTimeout));
+        } catch (MessagingException | RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.import.pool.evict-interval-ms:60000}")
+    public void evictIdle() {
+        Instant cutoff = Instant.now().minus(idleTimeout);
+        pools.forEach((key, pool) -> {
+            Iterator<PooledStore> iterator = pool.idle.iterator();
+            while (iterator.hasNext()) {
+                PooledStore candidate = iterator.next();
+                if (candidate.lastUsed.isBefore(cutoff) && pool.idle.removeFirstOccurrence(candidate)) {
+                    logger.debug("Closing idle IMAP connection of email source {}", key);
+                    candidate.destroy();
+                }
+            }
+            if (pool.idle.isEmpty() && pool.permits.availablePermits() == maxPerEndpoint) {
+                pools.remove(key, pool);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        pools.values().forEach(EndpointPool::retire);
+        pools.clear();
+    }
+
+    private final class EndpointPool {
+
+        private final String key;
+        private final ImapEmailFetcher.EmailConfig config;
+        private final Deque<PooledStore> idle = new ConcurrentLinkedDeque<>();
+        private final Semaphore permits = new Semaphore(maxPerEndpoint);
+        private volatile boolean retired;
+
+        private EndpointPool(String key, ImapEmailFetcher.EmailConfig config) {
+            this.key = key;
+            this.config = config;
+        }
+
+        private void retire() {
+            retired = true;
+            PooledStore candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                candidate.destroy();
+            }
+        }
+
+        private void giveBack(PooledStore pooledStore) {
+            try {
+                if (pooledStore.broken || retired || pools.get(key) != this) {
+                    pooledStore.destroy();
+                } else {
+                    pooledStore.lastUsed = Instant.now();
+                    idle.addFirst(pooledStore);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * A borrowed store. Closing it returns the store to the pool unless it
+     * was marked broken.
+     */
+    final class PooledStore implements AutoCloseable {
+
+        private final EndpointPool pool;
+        private final Store store;
+        private Folder folder;
+        private volatile Instant lastUsed = Instant.now();
+        private volatile boolean broken;
+
+        private PooledStore(EndpointPool pool, Store store) {
+            this.pool = pool;
+            this.store = store;
+        }
+
+        /**
+         * Returns the named folder opened read-write, reusing the one kept
+         * from the previous use when it is still open.
+         */
+        Folder openFolder(String name) throws MessagingException {
+            if (folder != null && folder.getFullName().equals(name) && folder.isOpen()) {
+                return folder;
+            }
+            closeFolder();
+            Folder candidate = store.getFolder(name);
+            if (candidate == null || !candidate.exists()) {
+                throw new FolderNotFoundException(candidate, "Folder '" + name + "' does not exist or cannot be accessed");
+            }
+            candidate.open(Folder.READ_WRITE);
+            folder = candidate;
+            return folder;
+        }
+
+        /**
+         * Discards the store instead of pooling it when it is given back,
+         * for when its state is unknown after an error.
+         */
+        void invalidate() {
+            broken = true;
+        }
+
+        /**
+         * Closes the connection from any thread, failing whatever the
+         * borrower is doing on it. The store is discarded when given back.
+         */
+        void abort() {
+            broken = true;
+            try {
+                store.close();
+            } catch (MessagingException e) {
+                logger.debug("Failed to abort pooled IMAP connection: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            pool.giveBack(this);
+        }
+
+        private void closeFolder() {
+            if (folder != null && folder.isOpen()) {
+                try {
+                    folder.close(false);
+                } catch (MessagingException e) {
+                    logger.debug("Failed to close pooled IMAP folder: {}", e.getMessage());
+                }
+            }
+            folder = null;
+        }
+
+        private void destroy() {
+            closeFolder();
+            try {
+                store.close();
+            } catch (MessagingException e) {
+                logger.debug("Failed to close pooled IMAP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
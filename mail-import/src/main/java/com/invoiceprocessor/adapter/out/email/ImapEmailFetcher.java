@@ -2,8 +2,13 @@ package com.invoiceprocessor.adapter.out.email;
 
 import com.invoiceprocessor.application.port.out.EmailFetcher;
 import com.invoiceprocessor.application.port.out.IntegrationEndpointRepository;
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository;
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository.MailboxCheckpoint;
 import com.invoiceprocessor.domain.entity.EndpointType;
 import com.invoiceprocessor.domain.entity.IntegrationEndpoint;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.protocol.UIDSet;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.*;
 import jakarta.mail.Flags.Flag;
 import jakarta.mail.search.FlagTerm;
@@ -15,12 +20,33 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Component
 public class ImapEmailFetcher implements EmailFetcher {
@@ -28,168 +54,383 @@ public class ImapEmailFetcher implements EmailFetcher {
     private static final Logger logger = LoggerFactory.getLogger(ImapEmailFetcher.class);
 
     private final IntegrationEndpointRepository integrationEndpointRepository;
+    private final MailboxCheckpointRepository checkpointRepository;
+    private final ImapConnectionPool connectionPool;
+    private final AttachmentSpool attachmentSpool;
     private final String defaultHost;
     private final int defaultPort;
     private final String defaultUsername;
     private final String defaultPassword;
     private final boolean defaultUseSSL;
+    private final Duration fetchTimeout;
+    private final ExecutorService fetchExecutor;
+    private final ScheduledExecutorService fetchWatchdog;
 
     public ImapEmailFetcher(
             IntegrationEndpointRepository integrationEndpointRepository,
+            MailboxCheckpointRepository checkpointRepository,
+            ImapConnectionPool connectionPool,
+            AttachmentSpool attachmentSpool,
             @Value("${email.imap.host:localhost}") String host,
             @Value("${email.imap.port:993}") int port,
             @Value("${email.imap.username:}") String username,
             @Value("${email.imap.password:}") String password,
-            @Value("${email.imap.ssl:true}") boolean useSSL) {
+            @Value("${email.imap.ssl:true}") boolean useSSL,
+            @Value("${email.import.fetch.parallelism:4}") int fetchParallelism,
+            @Value("${email.import.fetch.timeout-ms:120000}") long fetchTimeoutMs) {
         this.integrationEndpointRepository = integrationEndpointRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.connectionPool = connectionPool;
+        this.attachmentSpool = attachmentSpool;
         this.defaultHost = host;
         this.defaultPort = port;
         this.defaultUsername = username;
         this.defaultPassword = password;
         this.defaultUseSSL = useSSL;
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "imap-fetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fetchWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "imap-fetch-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private Store connect() throws MessagingException {
-        EmailConfig config = getConnectionConfig();
-        return connect(config);
-    }
+    @Override
+    public Stream<EmailMessage> fetchUnreadEmails(String folder) {
+        List<IntegrationEndpoint> emailSources = integrationEndpointRepository.findAllByType(EndpointType.EMAIL_SOURCE);
+        if (emailSources.isEmpty()) {
+            logger.warn("No EMAIL_SOURCE integration endpoints configured. Falling back to application properties");
+            return fetchFromConfig(null, folder).stream();
+        }
 
-    private Store connect(EmailConfig config) throws MessagingException {
-        logger.info("Connecting to IMAP server: {}:{} (SSL: {})", config.host(), config.port(), config.useSSL());
-
-        Properties props = new Properties();
-        props.put("mail.store.protocol", "imap");
-        props.put("mail.imap.host", config.host());
-        props.put("mail.imap.port", config.port());
-        if (config.useSSL()) {
-            props.put("mail.imap.ssl.enable", "true");
-            props.put("mail.imap.ssl.trust", config.host());
-        } else {
-            props.put("mail.imap.starttls.enable", "true");
+        CompletionService<List<EmailMessage>> completion = new ExecutorCompletionService<>(fetchExecutor);
+        List<Future<List<EmailMessage>>> fetches = new ArrayList<>();
+        Set<Future<List<EmailMessage>>> consumed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        for (IntegrationEndpoint endpoint : emailSources) {
+            fetches.add(completion.submit(() -> {
+                List<EmailMessage> fetched = fetchEndpoint(endpoint, folder);
+                if (abandoned.get()) {
+                    release(fetched);
+                    return List.of();
+                }
+                return fetched;
+            }));
         }
+        // Fetches nobody will consume any more must not keep their spooled attachments.
+        Runnable abandon = () -> {
+            abandoned.set(true);
+            for (Future<List<EmailMessage>> fetch : fetches) {
+                if (!consumed.contains(fetch) && !fetch.cancel(true) && !fetch.isCancelled()) {
+                    try {
+                        release(fetch.get());
+                    } catch (Exception e) {
+                        logger.debug("Abandoned email fetch failed: {}", e.getMessage());
+                    }
+                }
+            }
+        };
 
-        Session session = Session.getDefaultInstance(props);
-        Store store = session.getStore("imap");
-        logger.debug("Attempting to connect with username: {}", config.username());
-        store.connect(config.host(), config.port(), config.username(), config.password());
-        logger.info("Successfully connected to IMAP server");
-        return store;
+        Iterator<List<EmailMessage>> completed = new Iterator<>() {
+            private int remaining = fetches.size();
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public List<EmailMessage> next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    // Every fetch ends within its own timeout, so waiting here needs no deadline.
+                    Future<List<EmailMessage>> next = completion.take();
+                    remaining--;
+                    consumed.add(next);
+                    return next.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    remaining = 0;
+                    abandon.run();
+                    return List.of();
+                } catch (ExecutionException | CancellationException e) {
+                    return List.of();
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(completed, Spliterator.ORDERED), false)
+            .flatMap(List::stream)
+            .onClose(abandon);
+    }
+
+    private List<EmailMessage> fetchEndpoint(IntegrationEndpoint endpoint, String defaultFolder) {
+        String endpointFolder = endpoint.getSettings().getOrDefault("folder", defaultFolder);
+        try {
+            logger.info("Fetching emails for endpoint {} ({}) from folder {}", endpoint.getName(), endpoint.getId(), endpointFolder);
+            return fetchWithTimeout(endpoint, endpointFolder);
+        } catch (Exception e) {
+            logger.error("Failed to fetch emails for endpoint {} ({}): {}", endpoint.getName(), endpoint.getId(), e.getMessage(), e);
+            return List.of();
+        }
     }
 
     @Override
-    public java.util.List<EmailMessage> fetchUnreadEmails(String folder) {
-        java.util.List<EmailMessage> messages = new java.util.ArrayList<>();
+    public Stream<EmailMessage> fetchUnreadEmails(String endpointId, String folder) {
+        IntegrationEndpoint endpoint = findEndpoint(endpointId);
+        if (endpoint == null) {
+            logger.warn("Email source endpoint {} no longer exists, nothing to fetch", endpointId);
+            return Stream.empty();
+        }
+        return fetchWithTimeout(endpoint, folder).stream();
+    }
 
-        List<IntegrationEndpoint> emailSources = integrationEndpointRepository.findAllByType(EndpointType.EMAIL_SOURCE);
-        if (emailSources.isEmpty()) {
-            logger.warn("No EMAIL_SOURCE integration endpoints configured. Falling back to application properties");
-            messages.addAll(fetchFromConfig(null, folder));
-            return messages;
+    /**
+     * Fetches one endpoint and aborts its connection once the fetch has run
+     * for {@code email.import.fetch.timeout-ms}. The socket timeout only
+     * catches a server that stops answering; this also ends one that keeps
+     * answering slowly. Messages parsed before the abort are kept.
+     */
+    private List<EmailMessage> fetchWithTimeout(IntegrationEndpoint endpoint, String folder) {
+        FetchAbort abort = new FetchAbort();
+        ScheduledFuture<?> timeout = fetchWatchdog.schedule(() -> {
+            logger.warn("Fetch of endpoint {} ({}) is still running after {}, aborting it",
+                endpoint.getName(), endpoint.getId(), fetchTimeout);
+            abort.abort();
+        }, fetchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return fetchFromConfig(endpoint, folder, abort);
+        } finally {
+            timeout.cancel(false);
         }
+    }
 
-        for (IntegrationEndpoint endpoint : emailSources) {
-            String endpointFolder = endpoint.getSettings().getOrDefault("folder", folder);
-            try {
-                logger.info("Fetching emails for endpoint {} ({}) from folder {}", endpoint.getName(), endpoint.getId(), endpointFolder);
-                messages.addAll(fetchFromConfig(endpoint, endpointFolder));
-            } catch (Exception e) {
-                logger.error("Failed to fetch emails for endpoint {} ({}): {}", endpoint.getName(), endpoint.getId(), e.getMessage(), e);
+    @Override
+    public void release(List<EmailMessage> emails) {
+        for (EmailMessage email : emails) {
+            if (email.attachments() != null) {
+                email.attachments().forEach(attachment -> attachmentSpool.release(attachment.content()));
             }
         }
+    }
 
-        return messages;
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+        fetchWatchdog.shutdownNow();
     }
 
     private List<EmailMessage> fetchFromConfig(IntegrationEndpoint endpoint, String folder) {
+        return fetchFromConfig(endpoint, folder, new FetchAbort());
+    }
+
+    private List<EmailMessage> fetchFromConfig(IntegrationEndpoint endpoint, String folder, FetchAbort abort) {
         List<EmailMessage> messages = new ArrayList<>();
 
         EmailConfig config = (endpoint != null) ? fromEndpoint(endpoint) : getConnectionConfig();
-        try (Store store = connect(config)) {
+        ImapConnectionPool.PooledStore store = null;
+        try {
+            store = connectionPool.borrow(poolKey(endpoint), config);
+            abort.attach(store);
             logger.info("Opening folder: {}", folder);
-            Folder emailFolder = store.getFolder(folder);
-            if (emailFolder == null || !emailFolder.exists()) {
-                logger.error("Folder '{}' does not exist or cannot be accessed", folder);
-                throw new RuntimeException("Folder '" + folder + "' does not exist or cannot be accessed");
+            Folder emailFolder = store.openFolder(folder);
+            UIDFolder uidFolder = (UIDFolder) emailFolder;
+            long uidValidity = uidFolder.getUIDValidity();
+
+            Optional<MailboxCheckpoint> checkpoint = endpoint != null
+                ? checkpointRepository.find(endpoint.getId(), folder)
+                    .filter(existing -> existing.uidValidity() == uidValidity)
+                : Optional.empty();
+
+            Message[] selected;
+            if (checkpoint.isPresent()) {
+                long lastSeenUid = checkpoint.get().lastSeenUid();
+                // "n:*" always matches the newest message, even if its UID is below n.
+                selected = Arrays.stream(uidFolder.getMessagesByUID(lastSeenUid + 1, UIDFolder.LASTUID))
+                    .filter(message -> message != null && uidOf(uidFolder, message) > lastSeenUid)
+                    .toArray(Message[]::new);
+                logger.info("Found {} messages after UID {}", selected.length, lastSeenUid);
+            } else {
+                selected = emailFolder.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
+                logger.info("No checkpoint for folder {}, found {} unread messages", folder, selected.length);
             }
-            emailFolder.open(Folder.READ_WRITE);
-            logger.info("Folder opened. Total messages: {}, Unread: {}",
-                emailFolder.getMessageCount(), emailFolder.getUnreadMessageCount());
 
-            Message[] unreadMessages = emailFolder.search(
-                new FlagTerm(new Flags(Flags.Flag.SEEN), false)
-            );
-            logger.info("Found {} unread messages", unreadMessages.length);
+            FetchProfile uids = new FetchProfile();
+            uids.add(UIDFolder.FetchProfileItem.UID);
+            emailFolder.fetch(selected, uids);
 
             String endpointId = endpoint != null ? endpoint.getId().toString() : null;
+            long lastUid = checkpoint.isEmpty() && endpoint != null ? lastUid(uidFolder, emailFolder) : 0;
 
-            for (Message message : unreadMessages) {
+            if (checkpoint.isEmpty() && endpoint != null && selected.length == 0) {
+                checkpointRepository.save(new MailboxCheckpoint(endpoint.getId(), folder, uidValidity, lastUid));
+            }
+
+            for (int i = 0; i < selected.length; i++) {
+                if (abort.aborted) {
+                    logger.warn("Fetch of folder {} timed out, leaving {} messages for the next run", folder, selected.length - i);
+                    break;
+                }
+                if (!attachmentSpool.hasRoom()) {
+                    // The rest stays behind the checkpoint (or unread) and is picked up by a later run.
+                    logger.warn("Attachment spool is full, leaving {} messages of folder {} for the next run",
+                        selected.length - i, folder);
+                    break;
+                }
+                Message message = selected[i];
+                long uid = uidFolder.getUID(message);
+                MailboxCheckpoint after = null;
+                if (endpoint != null) {
+                    // Without a checkpoint only unread mail is imported; the read mail between
+                    // two unread ones counts as handled, as it did before checkpoints existed.
+                    long handledThrough = checkpoint.isPresent() ? uid
+                        : i + 1 < selected.length ? uidFolder.getUID(selected[i + 1]) - 1
+                        : Math.max(uid, lastUid);
+                    after = new MailboxCheckpoint(endpoint.getId(), folder, uidValidity, handledThrough);
+                }
                 try {
-                    EmailMessage emailMessage = parseMessage(endpointId, folder, (MimeMessage) message);
+                    EmailMessage emailMessage = parseMessage(endpointId, folder, (MimeMessage) message, uid, after);
                     messages.add(emailMessage);
                     logger.debug("Parsed email: {} - {}", emailMessage.messageId(), emailMessage.subject());
+                } catch (AttachmentSpool.SpoolException e) {
+                    // Not the mail's fault: give up the whole run for this folder and keep its checkpoint where it is.
+                    throw e;
                 } catch (Exception e) {
-                    logger.error("Error parsing message {}: {}", message.getMessageNumber(), e.getMessage(), e);
+                    // Stop here: a later message's checkpoint would cover this UID and it would never be retried.
+                    logger.error("Error parsing message {} (UID {}), leaving it and the {} messages after it for the next run: {}",
+                        message.getMessageNumber(), uid, selected.length - i - 1, e.getMessage(), e);
+                    break;
                 }
             }
 
-            emailFolder.close(false);
         } catch (Exception e) {
+            if (store != null) {
+                store.invalidate();
+            }
+            release(messages);
             logger.error("Unexpected error while fetching emails: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to fetch emails: " + e.getMessage(), e);
+        } finally {
+            if (store != null) {
+                store.close();
+            }
         }
 
         return messages;
     }
 
-    @Override
-    public void markAsRead(String endpointId, String messageId, String folder) {
-        try {
-            IntegrationEndpoint endpoint = null;
-            if (endpointId != null && !endpointId.isBlank()) {
-                try {
-                    UUID id = UUID.fromString(endpointId);
-                    endpoint = integrationEndpointRepository.findById(id).orElse(null);
-                } catch (IllegalArgumentException ex) {
-                    logger.warn("Invalid endpointId '{}' when marking message as read, falling back to default connection", endpointId);
-                }
+    /**
+     * Lets the fetch watchdog break off a fetch from another thread by
+     * closing its connection, which also ends a read blocked on the socket.
+     */
+    private static final class FetchAbort {
+
+        private volatile ImapConnectionPool.PooledStore store;
+        private volatile boolean aborted;
+
+        private void attach(ImapConnectionPool.PooledStore store) {
+            this.store = store;
+            if (aborted) {
+                store.abort();
             }
+        }
+
+        private void abort() {
+            aborted = true;
+            ImapConnectionPool.PooledStore current = store;
+            if (current != null) {
+                current.abort();
+            }
+        }
+    }
+
+    private long uidOf(UIDFolder uidFolder, Message message) {
+        try {
+            return uidFolder.getUID(message);
+        } catch (MessagingException e) {
+            throw new RuntimeException("Failed to read UID of message " + message.getMessageNumber(), e);
+        }
+    }
+
+    private long lastUid(UIDFolder uidFolder, Folder folder) throws MessagingException {
+        long uidNext = uidFolder.getUIDNext();
+        if (uidNext > 0) {
+            return uidNext - 1;
+        }
+        int count = folder.getMessageCount();
+        return count == 0 ? 0 : uidFolder.getUID(folder.getMessage(count));
+    }
 
+    @Override
+    public void markAsRead(String endpointId, String folder, List<Long> uids) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        try {
+            IntegrationEndpoint endpoint = findEndpoint(endpointId);
             EmailConfig config = endpoint != null ? fromEndpoint(endpoint) : getConnectionConfig();
 
-            try (Store store = connect(config)) {
-                logger.debug("Marking email {} as read in folder {} for endpoint {}", messageId, folder, endpointId);
-                Folder emailFolder = store.getFolder(folder);
-                if (emailFolder == null || !emailFolder.exists()) {
-                    logger.error("Folder '{}' does not exist for marking email as read", folder);
+            // Normally gets the connection and open folder the fetch just used.
+            try (ImapConnectionPool.PooledStore store = connectionPool.borrow(poolKey(endpoint), config)) {
+                logger.debug("Marking {} emails as read in folder {} for endpoint {}", uids.size(), folder, endpointId);
+                IMAPFolder emailFolder;
+                try {
+                    emailFolder = (IMAPFolder) store.openFolder(folder);
+                } catch (FolderNotFoundException e) {
+                    logger.error("Folder '{}' does not exist for marking emails as read", folder);
                     return;
                 }
-                emailFolder.open(Folder.READ_WRITE);
-
-                Message[] messages = emailFolder.getMessages();
-                boolean found = false;
-                for (Message message : messages) {
-                    String[] messageIds = message.getHeader("Message-ID");
-                    if (messageIds != null && messageIds.length > 0 && messageIds[0].equals(messageId)) {
-                        message.setFlag(Flags.Flag.SEEN, true);
-                        found = true;
-                        logger.debug("Marked email {} as read", messageId);
-                        break;
-                    }
-                }
 
-                if (!found) {
-                    logger.warn("Email with Message-ID {} not found in folder {} to mark as read", messageId, folder);
+                String uidSet = UIDSet.toString(UIDSet.createUIDSets(
+                    uids.stream().mapToLong(Long::longValue).sorted().toArray()));
+                // One UID STORE for the whole batch; unknown UIDs are ignored by the server.
+                try {
+                    emailFolder.doCommand(protocol -> {
+                        protocol.simpleCommand("UID STORE " + uidSet + " +FLAGS.SILENT (\\Seen)", null);
+                        return null;
+                    });
+                } catch (MessagingException e) {
+                    store.invalidate();
+                    throw e;
                 }
-
-                emailFolder.close(true);
+                logger.debug("Marked UIDs {} as read", uidSet);
             }
         } catch (Exception e) {
-            logger.error("Failed to mark email {} as read in folder {} for endpoint {}: {}", messageId, folder, endpointId, e.getMessage(), e);
+            logger.error("Failed to mark {} emails as read in folder {} for endpoint {}: {}", uids.size(), folder, endpointId, e.getMessage(), e);
             // Don't throw - we don't want to fail the whole import if marking as read fails
         }
     }
 
-    private EmailMessage parseMessage(String endpointId, String folder, MimeMessage message) throws Exception {
+    private String poolKey(IntegrationEndpoint endpoint) {
+        return endpoint != null ? endpoint.getId().toString() : "default";
+    }
+
+    private IntegrationEndpoint findEndpoint(String endpointId) {
+        if (endpointId == null || endpointId.isBlank()) {
+            return null;
+        }
+        try {
+            return integrationEndpointRepository.findById(UUID.fromString(endpointId)).orElse(null);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid endpointId '{}', falling back to default connection", endpointId);
+            return null;
+        }
+    }
+
+    private EmailMessage parseMessage(
+            String endpointId,
+            String folder,
+            MimeMessage message,
+            long uid,
+            MailboxCheckpoint checkpoint) throws Exception {
         String messageId = message.getHeader("Message-ID") != null
             ? message.getHeader("Message-ID")[0]
             : String.valueOf(message.getMessageNumber());
@@ -208,7 +449,7 @@ public class ImapEmailFetcher implements EmailFetcher {
         String body = extractBody(message);
         java.util.List<EmailAttachment> attachments = extractAttachments(message);
 
-        return new EmailMessage(endpointId, folder, messageId, from, to, subject, body, attachments);
+        return new EmailMessage(endpointId, folder, messageId, from, to, subject, body, attachments, uid, checkpoint);
     }
 
     private String extractBody(Message message) throws Exception {
@@ -230,15 +471,21 @@ public class ImapEmailFetcher implements EmailFetcher {
         java.util.List<EmailAttachment> attachments = new java.util.ArrayList<>();
 
         if (message.isMimeType("multipart/*")) {
-            MimeMultipart multipart = (MimeMultipart) message.getContent();
-            for (int i = 0; i < multipart.getCount(); i++) {
-                MimeBodyPart bodyPart = (MimeBodyPart) multipart.getBodyPart(i);
-                if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
-                    String filename = bodyPart.getFileName();
-                    String contentType = bodyPart.getContentType();
-                    InputStream content = bodyPart.getInputStream();
-                    attachments.add(new EmailAttachment(filename, contentType, content));
+            try {
+                MimeMultipart multipart = (MimeMultipart) message.getContent();
+                for (int i = 0; i < multipart.getCount(); i++) {
+                    MimeBodyPart bodyPart = (MimeBodyPart) multipart.getBodyPart(i);
+                    if (Part.ATTACHMENT.equalsIgnoreCase(bodyPart.getDisposition())) {
+                        String filename = bodyPart.getFileName();
+                        String contentType = bodyPart.getContentType();
+                        // Copied out now, while the folder is open, instead of holding a live IMAP stream.
+                        AttachmentSpool.SpooledAttachment content = attachmentSpool.spool(bodyPart.getInputStream());
+                        attachments.add(new EmailAttachment(filename, contentType, content.size(), content));
+                    }
                 }
+            } catch (Exception e) {
+                attachments.forEach(attachment -> attachmentSpool.release(attachment.content()));
+                throw e;
             }
         }
 
@@ -254,7 +501,7 @@ public class ImapEmailFetcher implements EmailFetcher {
             });
     }
 
-    private EmailConfig fromEndpoint(IntegrationEndpoint endpoint) {
+    EmailConfig fromEndpoint(IntegrationEndpoint endpoint) {
         Map<String, String> settings = endpoint.getSettings();
         String host = valueOrDefault(settings, "host", "imapHost", defaultHost);
         int port = parsePort(settings.getOrDefault("port", String.valueOf(defaultPort)));
@@ -296,7 +543,7 @@ public class ImapEmailFetcher implements EmailFetcher {
         return Boolean.parseBoolean(value);
     }
 
-    private record EmailConfig(
+    record EmailConfig(
         String host,
         int port,
         String username,
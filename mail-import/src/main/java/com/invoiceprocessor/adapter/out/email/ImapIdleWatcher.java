@@ -0,0 +1,269 @@
+package com.invoiceprocessor.adapter.out.email;
+
+import com.invoiceprocessor.application.port.out.IntegrationEndpointRepository;
+import com.invoiceprocessor.application.port.out.MailboxWatcher;
+import com.invoiceprocessor.domain.entity.EndpointType;
+import com.invoiceprocessor.domain.entity.IntegrationEndpoint;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import jakarta.mail.event.MessageCountAdapter;
+import jakarta.mail.event.MessageCountEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one IMAP IDLE connection per EMAIL_SOURCE endpoint and reports new
+ * messages as soon as the server announces them.
+ *
+ * Each endpoint is watched on its own daemon thread. The IDLE command is
+ * interrupted with a NOOP every {@code email.import.idle.keepalive-ms} so
+ * servers and NAT devices don't drop the connection. The NOOP is sent from a
+ * keepalive thread of the watch's own, and reads on the connection time out
+ * a minute after the keepalive interval, so a connection that silently died
+ * is reconnected without holding up the other watches. The set of endpoints is
+ * re-read every {@code email.import.idle.refresh-interval-ms}; watches of
+ * removed or reconfigured endpoints are restarted. Servers without the IDLE
+ * capability are not watched and keep being polled by the scheduler.
+ */
+@Component
+public class ImapIdleWatcher implements MailboxWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImapIdleWatcher.class);
+
+    private static final long MIN_RECONNECT_DELAY_MS = 5_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 300_000;
+    private static final Duration READ_TIMEOUT_MARGIN = Duration.ofMinutes(1);
+
+    private final IntegrationEndpointRepository integrationEndpointRepository;
+    private final ImapEmailFetcher emailFetcher;
+    private final ImapConnectionPool connectionPool;
+    private final String defaultFolder;
+    private final boolean enabled;
+    private final Duration keepAlive;
+    private final Map<UUID, Watch> watches = new ConcurrentHashMap<>();
+    private volatile NewMailListener listener;
+
+    public ImapIdleWatcher(
+            IntegrationEndpointRepository integrationEndpointRepository,
+            ImapEmailFetcher emailFetcher,
+            ImapConnectionPool connectionPool,
+            @Value("${email.import.folder:Test123}") String defaultFolder,
+            @Value("${email.import.idle.enabled:true}") boolean enabled,
+            @Value("${email.import.idle.keepalive-ms:540000}") long keepAliveMs) {
+        this.integrationEndpointRepository = integrationEndpointRepository;
+        this.emailFetcher = emailFetcher;
+        this.connectionPool = connectionPool;
+        this.defaultFolder = defaultFolder;
+        this.enabled = enabled;
+        this.keepAlive = Duration.ofMillis(keepAliveMs);
+    }
+
+    @Override
+    public void start(NewMailListener listener) {
+        if (!enabled) {
+            logger.info("IMAP IDLE is disabled, new mail is picked up by polling only");
+            return;
+        }
+        this.listener = listener;
+        refresh();
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        listener = null;
+        watches.values().forEach(Watch::close);
+        watches.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${email.import.idle.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (listener == null) {
+            return;
+        }
+        try {
+            Map<UUID, IntegrationEndpoint> endpoints = integrationEndpointRepository
+                .findAllByType(EndpointType.EMAIL_SOURCE)
+                .stream()
+                .collect(Collectors.toMap(IntegrationEndpoint::getId, Function.identity()));
+
+            watches.entrySet().removeIf(entry -> {
+                IntegrationEndpoint endpoint = endpoints.get(entry.getKey());
+                if (endpoint != null && entry.getValue().watches(emailFetcher.fromEndpoint(endpoint), folderOf(endpoint))) {
+                    return false;
+                }
+                entry.getValue().close();
+                return true;
+            });
+
+            for (IntegrationEndpoint endpoint : endpoints.values()) {
+                watches.computeIfAbsent(endpoint.getId(), id -> startWatch(endpoint));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to refresh IMAP IDLE watches: {}", e.getMessage(), e);
+        }
+    }
+
+    private Watch startWatch(IntegrationEndpoint endpoint) {
+        Watch watch = new Watch(endpoint.getId().toString(), emailFetcher.fromEndpoint(endpoint), folderOf(endpoint));
+        Thread thread = new Thread(watch, "imap-idle-" + endpoint.getName());
+        thread.setDaemon(true);
+        watch.thread = thread;
+        watch.keepAliveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread keepAliveThread = new Thread(runnable, "imap-idle-keepalive-" + endpoint.getName());
+            keepAliveThread.setDaemon(true);
+            return keepAliveThread;
+        });
+        watch.keepAliveExecutor.scheduleWithFixedDelay(
+            watch::keepAlive, keepAlive.toMillis(), keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        thread.start();
+        return watch;
+    }
+
+    private String folderOf(IntegrationEndpoint endpoint) {
+        return endpoint.getSettings().getOrDefault("folder", defaultFolder);
+    }
+
+    private final class Watch implements Runnable {
+
+        private final String endpointId;
+        private final ImapEmailFetcher.EmailConfig config;
+        private final String folder;
+        private volatile boolean running = true;
+        private volatile IMAPFolder current;
+        private Thread thread;
+        private ScheduledExecutorService keepAliveExecutor;
+
+        private Watch(String endpointId, ImapEmailFetcher.EmailConfig config, String folder) {
+            this.endpointId = endpointId;
+            this.config = config;
+            this.folder = folder;
+        }
+
+        boolean watches(ImapEmailFetcher.EmailConfig otherConfig, String otherFolder) {
+            return config.equals(otherConfig) && folder.equals(otherFolder);
+        }
+
+        @Override
+        public void run() {
+            long reconnectDelay = MIN_RECONNECT_DELAY_MS;
+            boolean reconnecting = false;
+            while (running) {
+                try (Store store = connectionPool.connect(config, keepAlive.plus(READ_TIMEOUT_MARGIN))) {
+                    if (!(store instanceof IMAPStore imapStore) || !imapStore.hasCapability("IDLE")) {
+                        logger.info("IMAP server of endpoint {} does not support IDLE, relying on polling", endpointId);
+                        return;
+                    }
+
+                    IMAPFolder imapFolder = (IMAPFolder) store.getFolder(folder);
+                    imapFolder.open(Folder.READ_ONLY);
+                    imapFolder.addMessageCountListener(new MessageCountAdapter() {
+                        @Override
+                        public void messagesAdded(MessageCountEvent event) {
+                            notifyListener();
+                        }
+                    });
+                    current = imapFolder;
+                    reconnectDelay = MIN_RECONNECT_DELAY_MS;
+                    logger.info("Watching folder {} of endpoint {} with IMAP IDLE", folder, endpointId);
+
+                    if (reconnecting) {
+                        // Mail may have arrived while the connection was down.
+                        notifyListener();
+                    }
+
+                    while (running && imapFolder.isOpen()) {
+                        imapFolder.idle();
+                    }
+                } catch (Exception e) {
+                    if (!running) {
+                        break;
+                    }
+                    logger.warn("IMAP IDLE connection of endpoint {} failed, reconnecting in {} ms: {}",
+                        endpointId, reconnectDelay, e.getMessage());
+                    try {
+                        Thread.sleep(reconnectDelay);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+                } finally {
+                    current = null;
+                    reconnecting = true;
+                }
+            }
+        }
+
+        private void notifyListener() {
+            NewMailListener target = listener;
+            if (target == null) {
+                return;
+            }
+            try {
+                target.onNewMail(endpointId, folder);
+            } catch (Exception e) {
+                logger.error("New mail listener failed for endpoint {}: {}", endpointId, e.getMessage(), e);
+            }
+        }
+
+        void keepAlive() {
+            IMAPFolder imapFolder = current;
+            if (imapFolder == null) {
+                return;
+            }
+            try {
+                // Any command on the folder ends the running IDLE; the watch thread re-enters it.
+                // Bounded by the read timeout when the server no longer answers.
+                imapFolder.doCommand(protocol -> {
+                    protocol.simpleCommand("NOOP", null);
+                    return null;
+                });
+            } catch (MessagingException e) {
+                logger.debug("IMAP keepalive for endpoint {} failed, reconnecting: {}", endpointId, e.getMessage());
+                try {
+                    // Fails the watch thread's IDLE so it reconnects.
+                    imapFolder.getStore().close();
+                } catch (MessagingException closeFailure) {
+                    logger.debug("Failed to close IMAP IDLE connection of endpoint {}: {}", endpointId, closeFailure.getMessage());
+                }
+            }
+        }
+
+        void close() {
+            running = false;
+            if (keepAliveExecutor != null) {
+                keepAliveExecutor.shutdownNow();
+            }
+            IMAPFolder imapFolder = current;
+            if (imapFolder != null) {
+                try {
+                    imapFolder.close(false);
+                } catch (Exception e) {
+                    logger.debug("Failed to close IMAP IDLE folder of endpoint {}: {}", endpointId, e.getMessage());
+                }
+            }
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.invoiceprocessor.application.port.out;
 
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository.MailboxCheckpoint;
+import org.springframework.core.io.InputStreamSource;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Port for fetching emails from a mailbox.
@@ -8,25 +12,41 @@ import java.util.List;
 public interface EmailFetcher {
 
     /**
-     * Fetches unread emails from the specified folder.
+     * Fetches emails that arrived since the last recorded checkpoint of each
+     * folder. Folders without a valid checkpoint fall back to unread emails.
      * May aggregate emails from multiple configured email source endpoints.
+     * The emails of one folder are adjacent and in UID order; folders appear
+     * in the order their fetch completes. Close the stream when done.
      *
      * @param folder The mailbox folder to fetch from (e.g., "INBOX")
-     * @return List of email messages
+     * @return Stream of email messages
+     */
+    Stream<EmailMessage> fetchUnreadEmails(String folder);
+
+    /**
+     * Fetches unread emails of a single email source endpoint.
+     *
+     * @param endpointId The identifier of the email source endpoint
+     * @param folder The mailbox folder to fetch from
+     * @return Stream of email messages
      */
-    List<EmailMessage> fetchUnreadEmails(String folder);
+    Stream<EmailMessage> fetchUnreadEmails(String endpointId, String folder);
 
     /**
-     * Marks an email as read.
+     * Marks emails of one folder as read in a single request.
      *
      * @param endpointId The identifier of the email source endpoint
-     * @param messageId The unique identifier of the email message
-     * @param folder The folder where the email is located
+     * @param folder The folder where the emails are located
+     * @param uids The IMAP UIDs of the emails
      */
-    void markAsRead(String endpointId, String messageId, String folder);
+    void markAsRead(String endpointId, String folder, List<Long> uids);
 
     /**
      * Represents an email message with its content and attachments.
+     *
+     * @param uid The IMAP UID of the message within its folder
+     * @param checkpoint Sync position to record once this message has been
+     *                   handled, or null if the source is not checkpointed
      */
     record EmailMessage(
         String endpointId,
@@ -36,15 +56,29 @@ public interface EmailFetcher {
         String to,
         String subject,
         String body,
-        List<EmailAttachment> attachments
+        List<EmailAttachment> attachments,
+        long uid,
+        MailboxCheckpoint checkpoint
     ) {}
 
+    /**
+     * Frees what fetched emails hold on to, such as spooled attachment
+     * content. Call once the emails have been handled, successfully or not.
+     *
+     * @param emails Emails returned by one of the fetch methods
+     */
+    void release(List<EmailMessage> emails);
+
     /**
      * Represents an email attachment.
+     *
+     * @param size Number of bytes of the content
+     * @param content Source of the attachment bytes; readable until the email is released
      */
     record EmailAttachment(
         String filename,
         String contentType,
-        java.io.InputStream content
+        long size,
+        InputStreamSource content
     ) {}
 }
@@ -0,0 +1,25 @@
+package com.invoiceprocessor.application.port.out;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Port for the per-folder sync position of email source endpoints.
+ */
+public interface MailboxCheckpointRepository {
+
+    Optional<MailboxCheckpoint> find(UUID endpointId, String folder);
+
+    void save(MailboxCheckpoint checkpoint);
+
+    /**
+     * Everything up to and including {@code lastSeenUid} has been handled.
+     * UIDs are only comparable while the folder keeps the same UIDVALIDITY.
+     */
+    record MailboxCheckpoint(
+        UUID endpointId,
+        String folder,
+        long uidValidity,
+        long lastSeenUid
+    ) {}
+}
@@ -0,0 +1,26 @@
+package com.invoiceprocessor.application.port.out;
+
+/**
+ * Port for push notifications about new mail, e.g. through IMAP IDLE.
+ * Mailboxes the watcher cannot watch are left to regular polling.
+ */
+public interface MailboxWatcher {
+
+    /**
+     * Starts watching all configured email source endpoints.
+     *
+     * @param listener Called from a watcher thread whenever new messages
+     *                 arrive in a watched mailbox
+     */
+    void start(NewMailListener listener);
+
+    /**
+     * Stops all watches and closes their connections.
+     */
+    void stop();
+
+    @FunctionalInterface
+    interface NewMailListener {
+        void onNewMail(String endpointId, String folder);
+    }
+}
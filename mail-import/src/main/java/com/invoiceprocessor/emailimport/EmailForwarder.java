@@ -6,17 +6,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class EmailForwarder {
@@ -25,22 +33,32 @@ public class EmailForwarder {
 
     private final RestTemplate restTemplate;
     private final String backendBaseUrl;
+    private final boolean multipart;
+    private final int batchSize;
+    private final long maxBatchBytes;
 
     public EmailForwarder(
             RestTemplateBuilder restTemplateBuilder,
-            @Value("${backend.api.base-url:http://localhost:8080}") String backendBaseUrl) {
+            @Value("${backend.api.base-url:http://localhost:8080}") String backendBaseUrl,
+            @Value("${email.import.forward.multipart:true}") boolean multipart,
+            @Value("${email.import.forward.batch-size:50}") int batchSize,
+            @Value("${email.import.forward.max-batch-bytes:104857600}") long maxBatchBytes) {
         this.restTemplate = restTemplateBuilder.build();
         this.backendBaseUrl = backendBaseUrl;
+        this.multipart = multipart;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchBytes = maxBatchBytes;
     }
 
+    /**
+     * Sends the email to the backend. By default as multipart/form-data,
+     * with each attachment streamed from its spooled file; with
+     * {@code email.import.forward.multipart=false} as the older JSON payload
+     * carrying base64 content.
+     */
     public void forwardEmail(EmailFetcher.EmailMessage email) {
         try {
-            EmailImportRequest request = toRequest(email);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<EmailImportRequest> entity = new HttpEntity<>(request, headers);
+            HttpEntity<?> entity = multipart ? toMultipartEntity(email) : toJsonEntity(email);
             String url = backendBaseUrl + "/api/internal/email-import";
 
             logger.debug("Forwarding email {} to backend at {}", email.messageId(), url);
@@ -52,6 +70,200 @@ public class EmailForwarder {
         }
     }
 
+    /**
+     * Sends the emails to the backend's batch endpoint.
+     *
+     * @return Whether each email was imported, in the order given
+     * @see #forward(List)
+     */
+    public List<Boolean> forwardEmails(List<EmailFetcher.EmailMessage> emails) {
+        return forward(emails).stream().map(outcome -> outcome == Outcome.ACCEPTED).toList();
+    }
+
+    /**
+     * Sends the emails to the backend's batch endpoint in requests of at
+     * most {@code email.import.forward.batch-size} emails and, going by
+     * their attachment sizes, {@code email.import.forward.max-batch-bytes}.
+     * A single email is always sent, whatever its size.
+     *
+     * @return The outcome of each email, in the order given
+     */
+    public List<Outcome> forward(List<EmailFetcher.EmailMessage> emails) {
+        List<Outcome> outcomes = new ArrayList<>();
+        for (List<EmailFetcher.EmailMessage> batch : batches(emails)) {
+            if (batch.size() == 1) {
+                outcomes.add(forwardSingle(batch.get(0)));
+            } else {
+                outcomes.addAll(forwardBatch(batch));
+            }
+        }
+        return outcomes;
+    }
+
+    private List<List<EmailFetcher.EmailMessage>> batches(List<EmailFetcher.EmailMessage> emails) {
+        List<List<EmailFetcher.EmailMessage>> batches = new ArrayList<>();
+        List<EmailFetcher.EmailMessage> batch = new ArrayList<>();
+        long batchBytes = 0;
+        for (EmailFetcher.EmailMessage email : emails) {
+            long bytes = estimatedBytes(email);
+            if (!batch.isEmpty() && (batch.size() >= batchSize || batchBytes + bytes > maxBatchBytes)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(email);
+            batchBytes += bytes;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private long estimatedBytes(EmailFetcher.EmailMessage email) {
+        long attachmentBytes = 0;
+        if (email.attachments() != null) {
+            for (EmailFetcher.EmailAttachment attachment : email.attachments()) {
+                attachmentBytes += attachment.size();
+            }
+        }
+        // The JSON payload carries attachments in base64.
+        long bodyBytes = email.body() != null ? email.body().length() : 0;
+        return bodyBytes + (multipart ? attachmentBytes : (attachmentBytes + 2) / 3 * 4);
+    }
+
+    private Outcome forwardSingle(EmailFetcher.EmailMessage email) {
+        try {
+            forwardEmail(email);
+            return Outcome.ACCEPTED;
+        } catch (Exception ex) {
+            return outcomeOf(ex);
+        }
+    }
+
+    private Outcome outcomeOf(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResourceAccessException) {
+                return Outcome.UNAVAILABLE;
+            }
+            if (cause instanceof HttpStatusCodeException statusException) {
+                int status = statusException.getStatusCode().value();
+                return status == 429 || status == 502 || status == 503 || status == 504
+                    ? Outcome.UNAVAILABLE
+                    : Outcome.REJECTED;
+            }
+        }
+        return Outcome.REJECTED;
+    }
+
+    private List<Outcome> forwardBatch(List<EmailFetcher.EmailMessage> batch) {
+        try {
+            HttpEntity<?> entity = multipart ? toMultipartBatchEntity(batch) : toJsonBatchEntity(batch);
+            String url = backendBaseUrl + "/api/internal/email-import/batch";
+
+            logger.debug("Forwarding batch of {} emails to backend at {}", batch.size(), url);
+            BatchImportResponse response = restTemplate.postForObject(url, entity, BatchImportResponse.class);
+            if (response == null || response.results() == null || response.results().size() != batch.size()) {
+                throw new IllegalStateException("Backend returned no result for some emails of the batch");
+            }
+
+            List<Outcome> outcomes = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                BatchItemResult result = response.results().get(i);
+                if (result.error() != null) {
+                    logger.error("Backend rejected email {}: {}", batch.get(i).messageId(), result.error());
+                }
+                outcomes.add(result.error() == null ? Outcome.ACCEPTED : Outcome.REJECTED);
+            }
+            return outcomes;
+        } catch (Exception ex) {
+            logger.error("Failed to forward batch of {} emails to backend: {}", batch.size(), ex.getMessage(), ex);
+            Outcome outcome = outcomeOf(ex);
+            return batch.stream().map(email -> outcome).toList();
+        }
+    }
+
+    private HttpEntity<List<EmailImportRequest>> toJsonBatchEntity(List<EmailFetcher.EmailMessage> batch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(batch.stream().map(this::toRequest).toList(), headers);
+    }
+
+    private HttpEntity<MultiValueMap<String, Object>> toMultipartBatchEntity(List<EmailFetcher.EmailMessage> batch) {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        List<BatchEmail> emails = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailFetcher.EmailMessage email = batch.get(i);
+            List<String> partNames = new ArrayList<>();
+            if (email.attachments() != null) {
+                for (int j = 0; j < email.attachments().size(); j++) {
+                    EmailFetcher.EmailAttachment attachment = email.attachments().get(j);
+                    String partName = "attachment-" + i + "-" + j;
+                    HttpHeaders partHeaders = new HttpHeaders();
+                    partHeaders.setContentType(attachmentMediaType(attachment.contentType()));
+                    parts.add(partName, new HttpEntity<>(new AttachmentResource(attachment), partHeaders));
+                    partNames.add(partName);
+                }
+            }
+            emails.add(new BatchEmail(email.from(), email.to(), email.subject(), email.body(), partNames));
+        }
+
+        HttpHeaders emailsHeaders = new HttpHeaders();
+        emailsHeaders.setContentType(MediaType.APPLICATION_JSON);
+        parts.add("emails", new HttpEntity<>(emails, emailsHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(parts, headers);
+    }
+
+    private HttpEntity<EmailImportRequest> toJsonEntity(EmailFetcher.EmailMessage email) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(toRequest(email), headers);
+    }
+
+    private HttpEntity<MultiValueMap<String, Object>> toMultipartEntity(EmailFetcher.EmailMessage email) {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        addTextPart(parts, "from", email.from());
+        addTextPart(parts, "to", email.to());
+        addTextPart(parts, "subject", email.subject());
+        addTextPart(parts, "body", email.body());
+
+        if (email.attachments() != null) {
+            for (EmailFetcher.EmailAttachment attachment : email.attachments()) {
+                HttpHeaders partHeaders = new HttpHeaders();
+                partHeaders.setContentType(attachmentMediaType(attachment.contentType()));
+                parts.add("attachments", new HttpEntity<>(new AttachmentResource(attachment), partHeaders));
+            }
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(parts, headers);
+    }
+
+    private void addTextPart(MultiValueMap<String, Object> parts, String name, String value) {
+        if (value != null) {
+            HttpHeaders partHeaders = new HttpHeaders();
+            partHeaders.setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+            parts.add(name, new HttpEntity<>(value, partHeaders));
+        }
+    }
+
+    private MediaType attachmentMediaType(String contentType) {
+        if (contentType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            // IMAP content types may be folded over several lines and carry a name parameter.
+            MediaType parsed = MediaType.parseMediaType(contentType.replaceAll("\\s*\\r?\\n\\s*", " "));
+            return new MediaType(parsed.getType(), parsed.getSubtype());
+        } catch (Exception ex) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
     private EmailImportRequest toRequest(EmailFetcher.EmailMessage email) {
         List<Attachment> attachments = new ArrayList<>();
 
@@ -61,7 +273,7 @@ public class EmailForwarder {
                     attachments.add(new Attachment(
                         attachment.filename(),
                         attachment.contentType(),
-                        toByteArray(attachment.content())
+                        toByteArray(attachment.content().getInputStream())
                     ));
                 } catch (Exception ex) {
                     logger.error("Failed to read attachment {} for email {}: {}",
@@ -89,5 +301,63 @@ public class EmailForwarder {
             return buffer.toByteArray();
         }
     }
-}
 
+    /**
+     * Multipart body part over an attachment, opened only when the request
+     * body is written.
+     */
+    private static class AttachmentResource extends AbstractResource {
+
+        private final EmailFetcher.EmailAttachment attachment;
+
+        AttachmentResource(EmailFetcher.EmailAttachment attachment) {
+            this.attachment = attachment;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return attachment.content().getInputStream();
+        }
+
+        @Override
+        public long contentLength() {
+            return attachment.size();
+        }
+
+        @Override
+        public String getFilename() {
+            // Parts without a filename would reach the backend as plain form fields.
+            return attachment.filename() != null ? attachment.filename() : "attachment";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Email attachment [" + getFilename() + "]";
+        }
+    }
+
+    public enum Outcome {
+        /** The backend imported the email. */
+        ACCEPTED,
+        /** The backend answered but refused the email or the request carrying it. */
+        REJECTED,
+        /** The backend could not be reached or asked to come back later. */
+        UNAVAILABLE
+    }
+
+    /**
+     * Metadata of one email in a multipart batch; attachments names the file
+     * parts that carry its attachments.
+     */
+    record BatchEmail(
+        String from,
+        String to,
+        String subject,
+        String body,
+        List<String> attachments
+    ) {}
+
+    record BatchImportResponse(List<BatchItemResult> results) {}
+
+    record BatchItemResult(UUID stackId, String error) {}
+}
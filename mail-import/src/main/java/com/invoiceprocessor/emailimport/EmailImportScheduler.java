@@ -1,15 +1,39 @@
 package com.invoiceprocessor.emailimport;
 
 import com.invoiceprocessor.application.port.out.EmailFetcher;
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository;
+import com.invoiceprocessor.application.port.out.MailboxCheckpointRepository.MailboxCheckpoint;
+import com.invoiceprocessor.application.port.out.MailboxWatcher;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * Imports unread mail either when the mailbox watcher reports new messages
+ * or on the polling interval, which stays as the fallback for servers
+ * without IMAP IDLE. Both paths share one lock so the same unread message
+ * is never forwarded twice concurrently.
+ */
 @Component
 public class EmailImportScheduler {
 
@@ -17,15 +41,50 @@ public class EmailImportScheduler {
 
     private final EmailFetcher emailFetcher;
     private final EmailForwarder emailForwarder;
+    private final MailboxWatcher mailboxWatcher;
+    private final MailboxCheckpointRepository checkpointRepository;
+    private final EmailOutbox outbox;
+    private final OutboxSender outboxSender;
     private final String emailFolder;
+    private final int forwardBatchSize;
+    private final ReentrantLock importLock = new ReentrantLock();
+    private final Set<String> pendingPushImports = ConcurrentHashMap.newKeySet();
+    // UIDs the backend accepted after an earlier failure in their folder, so after its checkpoint.
+    private final Map<String, Set<Long>> forwardedAheadOfCheckpoint = new ConcurrentHashMap<>();
+    private final ExecutorService pushImportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-push-import");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public EmailImportScheduler(
             EmailFetcher emailFetcher,
             EmailForwarder emailForwarder,
-            @Value("${email.import.folder:Test123}") String emailFolder) {
+            MailboxWatcher mailboxWatcher,
+            MailboxCheckpointRepository checkpointRepository,
+            EmailOutbox outbox,
+            OutboxSender outboxSender,
+            @Value("${email.import.folder:Test123}") String emailFolder,
+            @Value("${email.import.forward.batch-size:50}") int forwardBatchSize) {
         this.emailFetcher = emailFetcher;
         this.emailForwarder = emailForwarder;
+        this.mailboxWatcher = mailboxWatcher;
+        this.checkpointRepository = checkpointRepository;
+        this.outbox = outbox;
+        this.outboxSender = outboxSender;
         this.emailFolder = emailFolder;
+        this.forwardBatchSize = Math.max(1, forwardBatchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        mailboxWatcher.start(this::onNewMail);
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        mailboxWatcher.stop();
+        pushImportExecutor.shutdownNow();
     }
 
     @Scheduled(fixedDelayString = "${email.import.poll-interval-ms:30000}")
@@ -33,27 +92,180 @@ public class EmailImportScheduler {
     public void runImport() {
         try {
             logger.info("Starting email import from folder: {}", emailFolder);
-            List<EmailFetcher.EmailMessage> emails = emailFetcher.fetchUnreadEmails(emailFolder);
-            logger.info("Found {} unread emails", emails.size());
-
-            int success = 0;
-            int errors = 0;
-
-            for (EmailFetcher.EmailMessage email : emails) {
-                try {
-                    logger.debug("Forwarding email {} - {}", email.messageId(), email.subject());
-                    emailForwarder.forwardEmail(email);
-                    emailFetcher.markAsRead(email.endpointId(), email.messageId(), email.folder());
-                    success++;
-                } catch (Exception ex) {
-                    errors++;
-                    logger.error("Error processing email {}: {}", email.messageId(), ex.getMessage(), ex);
+            importEmails(() -> emailFetcher.fetchUnreadEmails(emailFolder));
+        } catch (Exception ex) {
+            logger.error("Scheduled email import failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void onNewMail(String endpointId, String folder) {
+        // Notifications arriving while an import for the mailbox is queued collapse into it.
+        String key = endpointId + "|" + folder;
+        if (!pendingPushImports.add(key)) {
+            return;
+        }
+        pushImportExecutor.execute(() -> {
+            pendingPushImports.remove(key);
+            try {
+                logger.info("New mail reported for endpoint {} in folder {}", endpointId, folder);
+                importEmails(() -> emailFetcher.fetchUnreadEmails(endpointId, folder));
+            } catch (Exception ex) {
+                logger.error("Email import for endpoint {} failed: {}", endpointId, ex.getMessage(), ex);
+            }
+        });
+    }
+
+    private void importEmails(Supplier<Stream<EmailFetcher.EmailMessage>> fetch) {
+        importLock.lock();
+        try (Stream<EmailFetcher.EmailMessage> emails = fetch.get()) {
+            ImportTally tally = new ImportTally();
+
+            // A folder's emails arrive together, so each folder is forwarded as soon as its fetch is done.
+            List<EmailFetcher.EmailMessage> mailbox = new ArrayList<>();
+            Iterator<EmailFetcher.EmailMessage> iterator = emails.iterator();
+            while (iterator.hasNext()) {
+                EmailFetcher.EmailMessage email = iterator.next();
+                if (!mailbox.isEmpty() && !sameMailbox(mailbox.get(0), email)) {
+                    importMailbox(mailbox, tally);
+                    mailbox = new ArrayList<>();
                 }
+                mailbox.add(email);
+            }
+            if (!mailbox.isEmpty()) {
+                importMailbox(mailbox, tally);
+            }
+
+            if (tally.deferred > 0) {
+                logger.info("{} emails deferred to the next run behind a failed one", tally.deferred);
+            }
+            logger.info("Email import finished: {} emails found, {} processed successfully, {} errors",
+                tally.found, tally.success, tally.errors);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private void importMailbox(List<EmailFetcher.EmailMessage> mailbox, ImportTally tally) {
+        try {
+            tally.found += mailbox.size();
+            if (outbox.isEnabled()) {
+                storeMailbox(mailbox, tally);
+                return;
+            }
+            List<Long> forwarded = new ArrayList<>();
+            MailboxCheckpoint reached = null;
+            boolean blocked = false;
+            for (int start = 0; start < mailbox.size() && !blocked; start += forwardBatchSize) {
+                List<EmailFetcher.EmailMessage> batch = mailbox.subList(start, Math.min(start + forwardBatchSize, mailbox.size()));
+                List<EmailFetcher.EmailMessage> toSend = batch.stream().filter(email -> !forwardedAhead(email)).toList();
+                Iterator<Boolean> results = toSend.isEmpty()
+                    ? Collections.emptyIterator()
+                    : emailForwarder.forwardEmails(toSend).iterator();
+                for (EmailFetcher.EmailMessage email : batch) {
+                    boolean alreadyForwarded = forwardedAhead(email);
+                    if (alreadyForwarded || results.next()) {
+                        tally.success++;
+                        if (!blocked) {
+                            // Only the items the backend accepted are marked as read.
+                            forwarded.add(email.uid());
+                            reached = email.checkpoint();
+                        } else if (!alreadyForwarded) {
+                            // Stays behind the checkpoint and is fetched again, but must not be sent twice.
+                            rememberForwardedAhead(email);
+                        }
+                    } else {
+                        tally.errors++;
+                        // The checkpoint can't move past this mail, so the rest of the folder is retried with it.
+                        blocked |= email.checkpoint() != null;
+                    }
+                }
+                if (blocked) {
+                    tally.deferred += mailbox.size() - start - batch.size();
+                }
+            }
+            if (!forwarded.isEmpty()) {
+                EmailFetcher.EmailMessage first = mailbox.get(0);
+                emailFetcher.markAsRead(first.endpointId(), first.folder(), forwarded);
             }
+            if (reached != null) {
+                saveCheckpoint(reached);
+                forgetForwardedThrough(reached);
+            }
+        } finally {
+            emailFetcher.release(mailbox);
+        }
+    }
+
+    private boolean forwardedAhead(EmailFetcher.EmailMessage email) {
+        MailboxCheckpoint checkpoint = email.checkpoint();
+        if (checkpoint == null) {
+            return false;
+        }
+        Set<Long> uids = forwardedAheadOfCheckpoint.get(checkpointKey(checkpoint));
+        return uids != null && uids.contains(email.uid());
+    }
+
+    private void rememberForwardedAhead(EmailFetcher.EmailMessage email) {
+        forwardedAheadOfCheckpoint
+            .computeIfAbsent(checkpointKey(email.checkpoint()), key -> ConcurrentHashMap.newKeySet())
+            .add(email.uid());
+    }
+
+    private void forgetForwardedThrough(MailboxCheckpoint checkpoint) {
+        Set<Long> uids = forwardedAheadOfCheckpoint.get(checkpointKey(checkpoint));
+        if (uids != null) {
+            uids.removeIf(uid -> uid <= checkpoint.lastSeenUid());
+        }
+    }
+
+    private String checkpointKey(MailboxCheckpoint checkpoint) {
+        // UIDs are only meaningful within one UIDVALIDITY of the folder.
+        return checkpoint.endpointId() + "|" + checkpoint.folder() + "|" + checkpoint.uidValidity();
+    }
 
-            logger.info("Email import finished: {} emails processed successfully, {} errors", success, errors);
+    /**
+     * Stores the folder's emails in the outbox and acknowledges them in the
+     * mailbox right away; {@link OutboxSender} forwards them from there.
+     */
+    private void storeMailbox(List<EmailFetcher.EmailMessage> mailbox, ImportTally tally) {
+        try {
+            outbox.append(mailbox);
         } catch (Exception ex) {
-            logger.error("Scheduled email import failed: {}", ex.getMessage(), ex);
+            // Nothing is marked as read, so the whole folder is fetched again next run.
+            logger.error("Failed to store {} emails of folder {} in the outbox: {}",
+                mailbox.size(), mailbox.get(0).folder(), ex.getMessage(), ex);
+            tally.errors += mailbox.size();
+            return;
+        }
+        tally.success += mailbox.size();
+        outboxSender.wakeUp();
+
+        EmailFetcher.EmailMessage first = mailbox.get(0);
+        emailFetcher.markAsRead(first.endpointId(), first.folder(),
+            mailbox.stream().map(EmailFetcher.EmailMessage::uid).toList());
+        MailboxCheckpoint reached = mailbox.get(mailbox.size() - 1).checkpoint();
+        if (reached != null) {
+            saveCheckpoint(reached);
         }
     }
+
+    private boolean sameMailbox(EmailFetcher.EmailMessage a, EmailFetcher.EmailMessage b) {
+        return Objects.equals(a.endpointId(), b.endpointId()) && Objects.equals(a.folder(), b.folder());
+    }
+
+    private void saveCheckpoint(MailboxCheckpoint checkpoint) {
+        try {
+            checkpointRepository.save(checkpoint);
+        } catch (Exception ex) {
+            logger.error("Failed to save checkpoint of folder {} for endpoint {}: {}",
+                checkpoint.folder(), checkpoint.endpointId(), ex.getMessage(), ex);
+        }
+    }
+
+    private static final class ImportTally {
+        private int found;
+        private int success;
+        private int errors;
+        private int deferred;
+    }
 }
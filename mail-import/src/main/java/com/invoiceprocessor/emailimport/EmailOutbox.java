@@ -0,0 +1,418 @@
+package com.invoiceprocessor.emailimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoiceprocessor.application.port.out.EmailFetcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable queue of parsed emails waiting to be forwarded to the backend.
+ *
+ * Emails are appended to segment files under
+ * {@code email.import.outbox.directory} and flushed to disk before
+ * {@link #append} returns, so the mailbox can be acknowledged right away.
+ * Each record holds a JSON header with the email fields and attachment
+ * sizes, the raw attachment bytes and a CRC32. A cursor file remembers how
+ * far the sender has got; segments behind it are deleted. On startup a torn
+ * record at the end of the last segment is cut off.
+ */
+@Component
+public class EmailOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private static final int MAGIC = 0x4F425831;
+    private static final int RECORD_PREFIX_BYTES = 8;
+    private static final int CRC_BYTES = 8;
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private Position cursor;
+    private long activeSegment;
+    private FileChannel activeChannel;
+
+    public EmailOutbox(
+            @Value("${email.import.outbox.enabled:true}") boolean enabled,
+            @Value("${email.import.outbox.directory:./data/outbox}") String directory,
+            @Value("${email.import.outbox.segment-bytes:67108864}") long segmentBytes) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            logger.info("Email outbox is disabled, emails are forwarded straight from the mailbox");
+            return;
+        }
+        Files.createDirectories(directory);
+        cursor = readCursor();
+
+        long lastSegment = cursor.segment();
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = Math.max(lastSegment, files
+                .map(file -> file.getFileName().toString())
+                .filter(name -> name.startsWith("segment-") && name.endsWith(".log"))
+                .mapToLong(name -> Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length())))
+                .max()
+                .orElse(lastSegment));
+        }
+
+        activeSegment = lastSegment;
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd = findValidEnd(activeChannel, activeSegment == cursor.segment() ? cursor.offset() : 0);
+        if (validEnd < activeChannel.size()) {
+            logger.warn("Cutting off {} bytes of an incomplete record at the end of outbox segment {}",
+                activeChannel.size() - validEnd, activeSegment);
+            activeChannel.truncate(validEnd);
+            activeChannel.force(true);
+        }
+        activeChannel.position(validEnd);
+        logger.info("Email outbox opened at {} (segment {}, cursor {}:{})",
+            directory, activeSegment, cursor.segment(), cursor.offset());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+    }
+
+    /**
+     * Writes the emails to the outbox and forces them to disk. Either all of
+     * them are stored or, on failure, none.
+     */
+    public synchronized void append(List<EmailFetcher.EmailMessage> emails) throws IOException {
+        long start = activeChannel.position();
+        try {
+            for (EmailFetcher.EmailMessage email : emails) {
+                writeRecord(email);
+            }
+            activeChannel.force(false);
+        } catch (IOException | RuntimeException e) {
+            activeChannel.truncate(start);
+            activeChannel.position(start);
+            throw e;
+        }
+
+        if (activeChannel.position() >= segmentBytes) {
+            activeChannel.close();
+            activeSegment++;
+            activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Returns up to {@code max} of the oldest emails that were not
+     * acknowledged yet, without removing them. Attachment content is read
+     * from the segment file when it is opened.
+     */
+    public synchronized List<Entry> peek(int max) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Position position = cursor;
+        while (entries.size() < max) {
+            Path segment = segmentPath(position.segment());
+            long limit = position.segment() == activeSegment ? activeChannel.position() : Files.size(segment);
+            if (position.offset() >= limit) {
+                if (position.segment() < activeSegment) {
+                    position = new Position(position.segment() + 1, 0);
+                    continue;
+                }
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                while (entries.size() < max && position.offset() < limit) {
+                    Entry entry = readEntry(channel, segment, position);
+                    entries.add(entry);
+                    position = entry.next();
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Marks everything before {@code next} as delivered and deletes the
+     * segments that are no longer needed.
+     */
+    public synchronized void acknowledge(Position next) throws IOException {
+        // A cursor at the end of a finished segment moves on, so that segment can go now.
+        while (next.segment() < activeSegment && next.offset() >= Files.size(segmentPath(next.segment()))) {
+            next = new Position(next.segment() + 1, 0);
+        }
+        Path temp = directory.resolve("cursor.tmp");
+        Files.writeString(temp, next.segment() + " " + next.offset(), StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve("cursor"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long segment = cursor.segment(); segment < next.segment(); segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        cursor = next;
+    }
+
+    /**
+     * Copies the entry's record to {@code rejected.log} for inspection; the
+     * caller acknowledges it afterwards.
+     */
+    public synchronized void reject(Entry entry) throws IOException {
+        try (FileChannel source = FileChannel.open(segmentPath(entry.position().segment()), StandardOpenOption.READ);
+             FileChannel rejected = FileChannel.open(directory.resolve("rejected.log"),
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long offset = entry.position().offset();
+            long length = entry.next().offset() - offset;
+            while (length > 0) {
+                long copied = source.transferTo(offset, length, rejected);
+                offset += copied;
+                length -= copied;
+            }
+            rejected.force(false);
+        }
+    }
+
+    private void writeRecord(EmailFetcher.EmailMessage email) throws IOException {
+        List<AttachmentHeader> attachments = new ArrayList<>();
+        if (email.attachments() != null) {
+            for (EmailFetcher.EmailAttachment attachment : email.attachments()) {
+                attachments.add(new AttachmentHeader(attachment.filename(), attachment.contentType(), attachment.size()));
+            }
+        }
+        byte[] header = objectMapper.writeValueAsBytes(new RecordHeader(
+            email.endpointId(), email.folder(), email.messageId(),
+            email.from(), email.to(), email.subject(), email.body(), attachments));
+
+        CRC32 crc = new CRC32();
+        writeFully(ByteBuffer.allocate(RECORD_PREFIX_BYTES).putInt(MAGIC).putInt(header.length).flip());
+        crc.update(header);
+        writeFully(ByteBuffer.wrap(header));
+
+        if (email.attachments() != null) {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            for (EmailFetcher.EmailAttachment attachment : email.attachments()) {
+                long copied = 0;
+                try (InputStream in = attachment.content().getInputStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        crc.update(buffer, 0, read);
+                        writeFully(ByteBuffer.wrap(buffer, 0, read));
+                        copied += read;
+                    }
+                }
+                if (copied != attachment.size()) {
+                    throw new IOException("Attachment " + attachment.filename() + " of email " + email.messageId()
+                        + " had " + copied + " bytes instead of " + attachment.size());
+                }
+            }
+        }
+
+        writeFully(ByteBuffer.allocate(CRC_BYTES).putLong(crc.getValue()).flip());
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            activeChannel.write(buffer);
+        }
+    }
+
+    private Entry readEntry(FileChannel channel, Path segment, Position position) throws IOException {
+        long offset = position.offset();
+        ByteBuffer prefix = readAt(channel, offset, RECORD_PREFIX_BYTES);
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException("Corrupt outbox record at " + segment + ":" + offset);
+        }
+        int headerLength = prefix.getInt();
+        RecordHeader header = objectMapper.readValue(
+            readAt(channel, offset + RECORD_PREFIX_BYTES, headerLength).array(), RecordHeader.class);
+
+        long contentOffset = offset + RECORD_PREFIX_BYTES + headerLength;
+        List<EmailFetcher.EmailAttachment> attachments = new ArrayList<>();
+        for (AttachmentHeader attachment : header.attachments()) {
+            attachments.add(new EmailFetcher.EmailAttachment(
+                attachment.filename(),
+                attachment.contentType(),
+                attachment.size(),
+                new SegmentSlice(segment, contentOffset, attachment.size())));
+            contentOffset += attachment.size();
+        }
+
+        EmailFetcher.EmailMessage email = new EmailFetcher.EmailMessage(
+            header.endpointId(), header.folder(), header.messageId(),
+            header.from(), header.to(), header.subject(), header.body(),
+            attachments, 0, null);
+        return new Entry(position, new Position(position.segment(), contentOffset + CRC_BYTES), email);
+    }
+
+    /**
+     * Walks the records from {@code offset} and returns where the last
+     * complete one with a matching CRC ends.
+     */
+    private long findValidEnd(FileChannel channel, long offset) throws IOException {
+        long size = channel.size();
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        while (offset + RECORD_PREFIX_BYTES <= size) {
+            ByteBuffer prefix = readAt(channel, offset, RECORD_PREFIX_BYTES);
+            if (prefix.getInt() != MAGIC) {
+                return offset;
+            }
+            int headerLength = prefix.getInt();
+            if (headerLength < 0 || offset + RECORD_PREFIX_BYTES + headerLength > size) {
+                return offset;
+            }
+            byte[] headerBytes = readAt(channel, offset + RECORD_PREFIX_BYTES, headerLength).array();
+            RecordHeader header;
+            try {
+                header = objectMapper.readValue(headerBytes, RecordHeader.class);
+            } catch (IOException e) {
+                return offset;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(headerBytes);
+            long position = offset + RECORD_PREFIX_BYTES + headerLength;
+            long contentEnd = position + header.attachments().stream().mapToLong(AttachmentHeader::size).sum();
+            if (contentEnd + CRC_BYTES > size) {
+                return offset;
+            }
+            while (position < contentEnd) {
+                int length = (int) Math.min(buffer.length, contentEnd - position);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+                while (chunk.hasRemaining()) {
+                    channel.read(chunk, position + chunk.position());
+                }
+                crc.update(buffer, 0, length);
+                position += length;
+            }
+            if (readAt(channel, contentEnd, CRC_BYTES).getLong() != crc.getValue()) {
+                return offset;
+            }
+            offset = contentEnd + CRC_BYTES;
+        }
+        return offset;
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of outbox segment at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private Position readCursor() throws IOException {
+        Path file = directory.resolve("cursor");
+        if (!Files.exists(file)) {
+            return new Position(0, 0);
+        }
+        String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%020d.log", segment));
+    }
+
+    public record Position(long segment, long offset) {}
+
+    /**
+     * @param position Where the record starts
+     * @param next Where the following record starts; acknowledge this to consume the entry
+     */
+    public record Entry(Position position, Position next, EmailFetcher.EmailMessage email) {}
+
+    record RecordHeader(
+        String endpointId,
+        String folder,
+        String messageId,
+        String from,
+        String to,
+        String subject,
+        String body,
+        List<AttachmentHeader> attachments
+    ) {}
+
+    record AttachmentHeader(String filename, String contentType, long size) {}
+
+    /**
+     * Attachment bytes inside a segment file.
+     */
+    private static final class SegmentSlice implements InputStreamSource {
+
+        private final Path segment;
+        private final long offset;
+        private final long length;
+
+        private SegmentSlice(Path segment, long offset, long length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            try {
+                FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+                return new InputStream() {
+                    private long position = offset;
+                    private final long end = offset + length;
+
+                    @Override
+                    public int read() throws IOException {
+                        byte[] single = new byte[1];
+                        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+                    }
+
+                    @Override
+                    public int read(byte[] bytes, int off, int len) throws IOException {
+                        if (position >= end) {
+                            return -1;
+                        }
+                        int read = channel.read(ByteBuffer.wrap(bytes, off, (int) Math.min(len, end - position)), position);
+                        if (read > 0) {
+                            position += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        channel.close();
+                    }
+                };
+            } catch (IOException e) {
+                throw new UncheckedIOException("Outbox segment is no longer available: " + segment, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.invoiceprocessor.emailimport;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the {@link EmailOutbox} to the backend on a background thread.
+ *
+ * Emails are sent in batches of {@code email.import.forward.batch-size} in
+ * the order they were stored. While the backend fails, sending backs off
+ * from 1 s up to 5 min. Only an unreachable backend, or one that asks to
+ * come back later, retries for free; every other failure of the oldest
+ * email counts against it, and after {@code email.import.outbox.max-attempts}
+ * it is moved to the outbox's {@code rejected.log} so it can't hold up the
+ * rest of the queue. When a whole batch is refused, the oldest email is
+ * tried on its own next, so a request that is too large as a whole isn't
+ * blamed on it.
+ */
+@Component
+public class OutboxSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxSender.class);
+
+    private static final long MIN_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 300_000;
+
+    private final EmailOutbox outbox;
+    private final EmailForwarder emailForwarder;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long sendIntervalMs;
+    private final Clock clock;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-outbox-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the sender thread.
+    private final Set<EmailOutbox.Position> delivered = new HashSet<>();
+    private EmailOutbox.Position failingHead;
+    private int headAttempts;
+    private boolean isolateHead;
+    private long retryDelayMs;
+    private long nextAttemptAt;
+
+    @Autowired
+    public OutboxSender(
+            EmailOutbox outbox,
+            EmailForwarder emailForwarder,
+            @Value("${email.import.forward.batch-size:50}") int batchSize,
+            @Value("${email.import.outbox.max-attempts:20}") int maxAttempts,
+            @Value("${email.import.outbox.send-interval-ms:1000}") long sendIntervalMs) {
+        this(outbox, emailForwarder, batchSize, maxAttempts, sendIntervalMs, Clock.systemUTC());
+    }
+
+    OutboxSender(
+            EmailOutbox outbox,
+            EmailForwarder emailForwarder,
+            int batchSize,
+            int maxAttempts,
+            long sendIntervalMs,
+            Clock clock) {
+        this.clock = clock;
+        this.outbox = outbox;
+        this.emailForwarder = emailForwarder;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.sendIntervalMs = sendIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (outbox.isEnabled()) {
+            executor.scheduleWithFixedDelay(this::drain, 0, sendIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends newly stored emails now instead of on the next interval, unless
+     * the sender is backing off.
+     */
+    public void wakeUp() {
+        if (outbox.isEnabled() && !executor.isShutdown()) {
+            executor.execute(this::drain);
+        }
+    }
+
+    void drain() {
+        try {
+            while (clock.millis() >= nextAttemptAt && sendBatch()) {
+                // Keep going while full batches are accepted.
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to send emails from the outbox: {}", ex.getMessage(), ex);
+            backOff();
+        }
+    }
+
+    /**
+     * @return Whether a batch was sent and accepted completely
+     */
+    private boolean sendBatch() throws Exception {
+        List<EmailOutbox.Entry> entries = outbox.peek(batchSize + delivered.size());
+        int limit = isolateHead ? 1 : batchSize;
+        List<EmailOutbox.Entry> pending = new ArrayList<>();
+        for (EmailOutbox.Entry entry : entries) {
+            if (!delivered.contains(entry.position()) && pending.size() < limit) {
+                pending.add(entry);
+            }
+        }
+        if (pending.isEmpty()) {
+            acknowledgeDelivered(entries);
+            return false;
+        }
+
+        List<EmailForwarder.Outcome> outcomes = emailForwarder.forward(pending.stream().map(EmailOutbox.Entry::email).toList());
+        int accepted = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            if (outcomes.get(i) == EmailForwarder.Outcome.ACCEPTED) {
+                delivered.add(pending.get(i).position());
+                accepted++;
+            }
+        }
+
+        EmailOutbox.Entry head = pending.get(0);
+        if (outcomes.get(0) == EmailForwarder.Outcome.REJECTED && pending.size() > 1 && accepted == 0) {
+            // Possibly the request as a whole was refused, e.g. as too large; find out with the head alone.
+            isolateHead = true;
+        } else if (outcomes.get(0) == EmailForwarder.Outcome.REJECTED) {
+            // The backend answered and refused this email, so the attempt counts against it.
+            headAttempts = head.position().equals(failingHead) ? headAttempts + 1 : 1;
+            failingHead = head.position();
+            if (headAttempts >= maxAttempts) {
+                logger.error("Giving up on email {} after {} attempts, moving it to the rejected log",
+                    head.email().messageId(), headAttempts);
+                outbox.reject(head);
+                delivered.add(head.position());
+            }
+        }
+        acknowledgeDelivered(entries);
+
+        if (accepted < pending.size()) {
+            backOff();
+            return false;
+        }
+        retryDelayMs = 0;
+        return pending.size() == limit;
+    }
+
+    /**
+     * Moves the outbox cursor past the delivered entries at its front.
+     * Entries delivered behind a failed one are remembered until it goes through.
+     */
+    private void acknowledgeDelivered(List<EmailOutbox.Entry> entries) throws Exception {
+        EmailOutbox.Position next = null;
+        for (EmailOutbox.Entry entry : entries) {
+            if (!delivered.remove(entry.position())) {
+                break;
+            }
+            next = entry.next();
+        }
+        if (next != null) {
+            outbox.acknowledge(next);
+            failingHead = null;
+            headAttempts = 0;
+            isolateHead = false;
+        }
+    }
+
+    private void backOff() {
+        retryDelayMs = retryDelayMs == 0 ? MIN_RETRY_DELAY_MS : Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+        nextAttemptAt = clock.millis() + retryDelayMs;
+        logger.info("Retrying outbox delivery in {} ms", retryDelayMs);
+    }
+}
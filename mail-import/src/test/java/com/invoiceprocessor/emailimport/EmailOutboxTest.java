@@ -0,0 +1,201 @@
+package com.invoiceprocessor.emailimport;
+
+import com.invoiceprocessor.application.port.out.EmailFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+class EmailOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private EmailOutbox outbox;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Test
+    void testAppendAndPeek_ShouldReturnEmailsWithAttachmentsInOrder() throws IOException {
+        outbox = open(1024 * 1024);
+
+        outbox.append(List.of(email("m1", "first"), email("m2", "second")));
+
+        List<EmailOutbox.Entry> entries = outbox.peek(10);
+        assertEquals(2, entries.size());
+        assertEquals("m1", entries.get(0).email().messageId());
+        assertEquals("Subject m1", entries.get(0).email().subject());
+        assertEquals("INBOX", entries.get(0).email().folder());
+        assertEquals("second", content(entries.get(1).email().attachments().get(0)));
+        assertEquals(6, entries.get(1).email().attachments().get(0).size());
+        assertEquals(entries.get(0).next(), entries.get(1).position());
+    }
+
+    @Test
+    void testPeek_ShouldNotRemoveEntries() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a"), email("m2", "b"), email("m3", "c")));
+
+        assertEquals(2, outbox.peek(2).size());
+        assertEquals(3, outbox.peek(10).size());
+    }
+
+    @Test
+    void testAcknowledge_ShouldSurviveReopen() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a"), email("m2", "b"), email("m3", "c")));
+        outbox.acknowledge(outbox.peek(10).get(0).next());
+        outbox.close();
+
+        outbox = open(1024 * 1024);
+
+        List<EmailOutbox.Entry> entries = outbox.peek(10);
+        assertEquals(List.of("m2", "m3"), entries.stream().map(entry -> entry.email().messageId()).toList());
+    }
+
+    @Test
+    void testOpen_WithTornRecordAtEnd_ShouldCutItOff() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a"), email("m2", "b")));
+        outbox.close();
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        outbox = open(1024 * 1024);
+
+        List<EmailOutbox.Entry> entries = outbox.peek(10);
+        assertEquals(1, entries.size());
+        assertEquals("m1", entries.get(0).email().messageId());
+        assertEquals(entries.get(0).next().offset(), Files.size(segment));
+    }
+
+    @Test
+    void testOpen_WithCorruptedAttachmentBytes_ShouldDropRecordByCrc() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a"), email("m2", "payload")));
+        outbox.close();
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        // The last attachment sits right before the 8-byte CRC.
+        bytes[bytes.length - 9] ^= 0x01;
+        Files.write(segment, bytes);
+
+        outbox = open(1024 * 1024);
+
+        assertEquals(List.of("m1"), outbox.peek(10).stream().map(entry -> entry.email().messageId()).toList());
+    }
+
+    @Test
+    void testAppend_AfterRecovery_ShouldContinueBehindValidRecords() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a")));
+        outbox.close();
+        Files.write(segments().get(0), new byte[]{0x4F, 0x42}, StandardOpenOption.APPEND);
+
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m2", "b")));
+
+        assertEquals(List.of("m1", "m2"), outbox.peek(10).stream().map(entry -> entry.email().messageId()).toList());
+    }
+
+    @Test
+    void testAppend_WithFailingEmail_ShouldStoreNoneOfTheBatch() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a")));
+        EmailFetcher.EmailMessage broken = new EmailFetcher.EmailMessage(
+            "endpoint", "INBOX", "m3", "from", "to", "subject", "body",
+            List.of(new EmailFetcher.EmailAttachment("a.txt", "text/plain", 99,
+                new ByteArrayResource("short".getBytes(StandardCharsets.UTF_8)))),
+            3, null);
+
+        assertThrows(IOException.class, () -> outbox.append(List.of(email("m2", "b"), broken)));
+
+        assertEquals(List.of("m1"), outbox.peek(10).stream().map(entry -> entry.email().messageId()).toList());
+        outbox.close();
+        outbox = open(1024 * 1024);
+        assertEquals(1, outbox.peek(10).size());
+    }
+
+    @Test
+    void testAppend_PastSegmentSize_ShouldRollAndDeleteAcknowledgedSegments() throws IOException {
+        outbox = open(1);
+        outbox.append(List.of(email("m1", "a")));
+        outbox.append(List.of(email("m2", "b")));
+        outbox.append(List.of(email("m3", "c")));
+
+        List<EmailOutbox.Entry> entries = outbox.peek(10);
+        assertEquals(List.of("m1", "m2", "m3"), entries.stream().map(entry -> entry.email().messageId()).toList());
+        assertEquals(4, segments().size());
+
+        outbox.acknowledge(entries.get(1).next());
+
+        assertEquals(2, segments().size());
+        assertEquals(List.of("m3"), outbox.peek(10).stream().map(entry -> entry.email().messageId()).toList());
+    }
+
+    @Test
+    void testReject_ShouldCopyRecordToRejectedLog() throws IOException {
+        outbox = open(1024 * 1024);
+        outbox.append(List.of(email("m1", "a"), email("m2", "b")));
+        EmailOutbox.Entry first = outbox.peek(1).get(0);
+
+        outbox.reject(first);
+
+        assertEquals(first.next().offset() - first.position().offset(), Files.size(directory.resolve("rejected.log")));
+    }
+
+    @Test
+    void testIsEnabled_WhenDisabled_ShouldNotCreateDirectory() throws IOException {
+        Path unused = directory.resolve("disabled");
+        outbox = new EmailOutbox(false, unused.toString(), 1024);
+        outbox.open();
+
+        assertFalse(outbox.isEnabled());
+        assertFalse(Files.exists(unused));
+    }
+
+    private EmailOutbox open(long segmentBytes) throws IOException {
+        EmailOutbox opened = new EmailOutbox(true, directory.toString(), segmentBytes);
+        opened.open();
+        return opened;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private static EmailFetcher.EmailMessage email(String messageId, String attachmentContent) {
+        byte[] content = attachmentContent.getBytes(StandardCharsets.UTF_8);
+        return new EmailFetcher.EmailMessage(
+            "endpoint", "INBOX", messageId, "sender@example.com", "invoices@example.com",
+            "Subject " + messageId, "Body of " + messageId,
+            List.of(new EmailFetcher.EmailAttachment("invoice.txt", "text/plain", content.length, new ByteArrayResource(content))),
+            1, null);
+    }
+
+    private static String content(EmailFetcher.EmailAttachment attachment) throws IOException {
+        try (InputStream in = attachment.content().getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.invoiceprocessor.emailimport;
+
+import com.invoiceprocessor.application.port.out.EmailFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static com.invoiceprocessor.emailimport.EmailForwarder.Outcome.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+class OutboxSenderTest {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+    private final EmailForwarder forwarder = mock(EmailForwarder.class);
+    private final List<List<String>> sent = new ArrayList<>();
+    private EmailOutbox outbox;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outbox = new EmailOutbox(true, directory.toString(), 1024 * 1024);
+        outbox.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        outbox.close();
+    }
+
+    @Test
+    void testDrain_AllAccepted_ShouldEmptyOutbox() throws IOException {
+        outbox.append(List.of(email("m1"), email("m2"), email("m3")));
+        answer(ids -> ids.stream().map(id -> ACCEPTED).toList());
+
+        sender(2, 5).drain();
+
+        assertEquals(List.of(List.of("m1", "m2"), List.of("m3")), sent);
+        assertTrue(outbox.peek(10).isEmpty());
+    }
+
+    @Test
+    void testDrain_BackendUnavailable_ShouldBackOffWithoutCountingAttempts() throws IOException {
+        outbox.append(List.of(email("m1")));
+        answer(ids -> ids.stream().map(id -> UNAVAILABLE).toList());
+        OutboxSender sender = sender(1, 2);
+
+        for (int i = 0; i < 10; i++) {
+            sender.drain();
+            clock.advance(Duration.ofMinutes(10));
+        }
+
+        assertEquals(10, sent.size());
+        assertEquals(1, outbox.peek(10).size());
+        assertFalse(Files.exists(directory.resolve("rejected.log")));
+    }
+
+    @Test
+    void testDrain_WhileBackingOff_ShouldNotSend() throws IOException {
+        outbox.append(List.of(email("m1")));
+        answer(ids -> ids.stream().map(id -> UNAVAILABLE).toList());
+        OutboxSender sender = sender(1, 2);
+
+        sender.drain();
+        sender.drain();
+
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void testDrain_RejectedEmailWithBatchSizeOne_ShouldMoveToRejectedLog() throws IOException {
+        outbox.append(List.of(email("poison"), email("m2")));
+        answer(ids -> ids.stream().map(id -> id.equals("poison") ? REJECTED : ACCEPTED).toList());
+        OutboxSender sender = sender(1, 3);
+
+        for (int i = 0; i < 4; i++) {
+            sender.drain();
+            clock.advance(Duration.ofMinutes(10));
+        }
+
+        assertTrue(Files.size(directory.resolve("rejected.log")) > 0);
+        assertTrue(outbox.peek(10).isEmpty());
+        assertEquals(List.of("poison", "poison", "poison", "m2"), sent.stream().flatMap(List::stream).toList());
+    }
+
+    @Test
+    void testDrain_WholeBatchRejected_ShouldRetryHeadAlone() throws IOException {
+        outbox.append(List.of(email("m1"), email("m2"), email("m3")));
+        // Too large together, fine one by one.
+        answer(ids -> ids.stream().map(id -> ids.size() > 1 ? REJECTED : ACCEPTED).toList());
+        OutboxSender sender = sender(3, 3);
+
+        for (int i = 0; i < 10; i++) {
+            sender.drain();
+            clock.advance(Duration.ofMinutes(10));
+        }
+
+        assertEquals(List.of("m1", "m2", "m3"), sent.stream().filter(ids -> ids.size() == 1).flatMap(List::stream).toList());
+        assertTrue(outbox.peek(10).isEmpty());
+        assertFalse(Files.exists(directory.resolve("rejected.log")));
+    }
+
+    @Test
+    void testDrain_AcceptedBehindFailedHead_ShouldNotResendThem() throws IOException {
+        outbox.append(List.of(email("m1"), email("m2"), email("m3")));
+        List<Boolean> headFails = new ArrayList<>(List.of(true));
+        answer(ids -> ids.stream()
+            .map(id -> id.equals("m1") && headFails.remove(Boolean.TRUE) ? UNAVAILABLE : ACCEPTED)
+            .toList());
+        OutboxSender sender = sender(3, 3);
+
+        sender.drain();
+        assertEquals(3, outbox.peek(10).size());
+        clock.advance(Duration.ofMinutes(10));
+        sender.drain();
+
+        assertEquals(List.of(List.of("m1", "m2", "m3"), List.of("m1")), sent);
+        assertTrue(outbox.peek(10).isEmpty());
+    }
+
+    private OutboxSender sender(int batchSize, int maxAttempts) {
+        return new OutboxSender(outbox, forwarder, batchSize, maxAttempts, 1000, clock);
+    }
+
+    private void answer(Function<List<String>, List<EmailForwarder.Outcome>> outcomes) {
+        when(forwarder.forward(anyList())).thenAnswer(invocation -> {
+            List<EmailFetcher.EmailMessage> emails = invocation.getArgument(0);
+            List<String> ids = emails.stream().map(EmailFetcher.EmailMessage::messageId).toList();
+            sent.add(ids);
+            return outcomes.apply(ids);
+        });
+    }
+
+    private static EmailFetcher.EmailMessage email(String messageId) {
+        return new EmailFetcher.EmailMessage(
+            "endpoint", "INBOX", messageId, "sender@example.com", "invoices@example.com",
+            "Subject " + messageId, "Body", List.of(), 1, null);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}